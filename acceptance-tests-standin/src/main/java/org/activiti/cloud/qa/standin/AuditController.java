@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.standin;
+
+import static org.activiti.cloud.qa.standin.HalResources.page;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Audit service endpoints, lagging behind the runtime bundle by the consistency delay.
+ * Events are filtered on the request parameters named after their fields and on
+ * the field:value pairs of the search parameter.
+ */
+@RestController
+@RequestMapping("/audit")
+public class AuditController {
+
+    private final StandInModel model;
+
+    public AuditController(StandInModel model) {
+        this.model = model;
+    }
+
+    @GetMapping("/actuator/health")
+    public Map<String, Object> health() {
+        return Collections.singletonMap("status", "UP");
+    }
+
+    @GetMapping({"/v1/events", "/admin/v1/events"})
+    public Map<String, Object> events(@RequestParam Map<String, String> params) {
+        Map<String, String> filters = new LinkedHashMap<>(params);
+        String search = filters.remove("search");
+        if (search != null) {
+            for (String condition : search.split(",")) {
+                String[] nameAndValue = condition.split(":", 2);
+                if (nameAndValue.length == 2) {
+                    filters.put(nameAndValue[0], nameAndValue[1]);
+                }
+            }
+        }
+        return page("events",
+                    model.auditEvents(filters),
+                    params);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.standin;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Read side of a service that lags behind the runtime bundle by a fixed delay,
+ * like the query and audit services consuming the events of the runtime bundle.
+ * <p>
+ * Only the snapshots still to come and the last visible one are kept for each entity,
+ * and the entities removed for longer than the delay are dropped.
+ */
+class DelayedView {
+
+    private final Supplier<Duration> delay;
+
+    private final Map<String, List<Snapshot>> snapshots = new ConcurrentHashMap<>();
+
+    DelayedView(Supplier<Duration> delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * Publishes a new state of the entity, null once it is removed
+     */
+    void update(String id,
+                Map<String, Object> state) {
+        long now = System.currentTimeMillis();
+        Snapshot snapshot = new Snapshot(now + delay.get().toMillis(),
+                                         state);
+        snapshots.compute(id,
+                          (key, history) -> {
+                              List<Snapshot> updated = history == null ? new ArrayList<>() : new ArrayList<>(compact(history,
+                                                                                                                     now));
+                              updated.add(snapshot);
+                              return Collections.unmodifiableList(updated);
+                          });
+    }
+
+    Optional<Map<String, Object>> get(String id) {
+        List<Snapshot> history = snapshots.get(id);
+        if (history == null) {
+            return Optional.empty();
+        }
+        return visible(history,
+                       System.currentTimeMillis());
+    }
+
+    List<Map<String, Object>> all() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> visible = new ArrayList<>();
+        for (String id : snapshots.keySet()) {
+            List<Snapshot> history = snapshots.computeIfPresent(id,
+                                                                (key, current) -> {
+                                                                    List<Snapshot> compacted = compact(current,
+                                                                                                       now);
+                                                                    return isRemoved(compacted,
+                                                                                     now) ? null : compacted;
+                                                                });
+            if (history != null) {
+                visible(history,
+                        now).ifPresent(visible::add);
+            }
+        }
+        return visible;
+    }
+
+    static boolean matches(Map<String, Object> entity,
+                           Map<String, String> filters) {
+        return filters.entrySet()
+                .stream()
+                .allMatch(filter -> !entity.containsKey(filter.getKey())
+                        || Objects.equals(String.valueOf(entity.get(filter.getKey())),
+                                          filter.getValue()));
+    }
+
+    private static Optional<Map<String, Object>> visible(List<Snapshot> history,
+                                                         long now) {
+        for (int i = history.size() - 1; i >= 0; i--) {
+            Snapshot snapshot = history.get(i);
+            if (snapshot.visibleAt <= now) {
+                return Optional.ofNullable(snapshot.state);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The snapshots from the last visible one on, the earlier ones can no longer be read
+     */
+    private static List<Snapshot> compact(List<Snapshot> history,
+                                          long now) {
+        for (int i = history.size() - 1; i > 0; i--) {
+            if (history.get(i).visibleAt <= now) {
+                return Collections.unmodifiableList(new ArrayList<>(history.subList(i,
+                                                                                    history.size())));
+            }
+        }
+        return history;
+    }
+
+    private static boolean isRemoved(List<Snapshot> compacted,
+                                     long now) {
+        return compacted.size() == 1
+                && compacted.get(0).state == null
+                && compacted.get(0).visibleAt <= now;
+    }
+
+    private static class Snapshot {
+
+        private final long visibleAt;
+
+        private final Map<String, Object> state;
+
+        private Snapshot(long visibleAt,
+                         Map<String, Object> state) {
+            this.visibleAt = visibleAt;
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.standin;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * HAL representations, as returned by the Activiti Cloud services
+ */
+class HalResources {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    static Map<String, Object> resource(Map<String, Object> entity) {
+        Map<String, Object> resource = new LinkedHashMap<>(entity);
+        resource.put("_links", selfLink());
+        return resource;
+    }
+
+    static Map<String, Object> collection(String rel,
+                                          List<Map<String, Object>> entities) {
+        Map<String, Object> resources = new LinkedHashMap<>();
+        resources.put("_embedded", Collections.singletonMap(rel, entities));
+        resources.put("_links", selfLink());
+        return resources;
+    }
+
+    static Map<String, Object> page(String rel,
+                                    List<Map<String, Object>> entities,
+                                    Map<String, String> params) {
+        int size = Integer.parseInt(params.getOrDefault("maxItems",
+                                                        params.getOrDefault("size", String.valueOf(DEFAULT_PAGE_SIZE))));
+        int number = Integer.parseInt(params.getOrDefault("page", "0"));
+        int from = Math.min(number * size, entities.size());
+        int to = Math.min(from + size, entities.size());
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("size", size);
+        page.put("totalElements", entities.size());
+        page.put("totalPages", size == 0 ? 0 : (entities.size() + size - 1) / size);
+        page.put("number", number);
+
+        Map<String, Object> resources = collection(rel,
+                                                   entities.subList(from, to));
+        resources.put("page", page);
+        return resources;
+    }
+
+    private static Map<String, Object> selfLink() {
+        return Collections.singletonMap("self",
+                                        Collections.singletonMap("href",
+                                                                 ServletUriComponentsBuilder.fromCurrentRequest().toUriString()));
+    }
+}
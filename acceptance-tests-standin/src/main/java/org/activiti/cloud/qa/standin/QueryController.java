@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.standin;
+
+import static org.activiti.cloud.qa.standin.HalResources.page;
+import static org.activiti.cloud.qa.standin.HalResources.resource;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Query service endpoints, lagging behind the runtime bundle by the consistency delay.
+ * Request parameters named after a field of the entities filter on that field.
+ */
+@RestController
+@RequestMapping("/query")
+public class QueryController {
+
+    private final StandInModel model;
+
+    public QueryController(StandInModel model) {
+        this.model = model;
+    }
+
+    @GetMapping("/actuator/health")
+    public Map<String, Object> health() {
+        return Collections.singletonMap("status", "UP");
+    }
+
+    @GetMapping({"/v1/process-instances", "/admin/v1/process-instances"})
+    public Map<String, Object> processInstances(@RequestParam Map<String, String> params) {
+        return page("processInstances",
+                    model.queryProcessInstances(params),
+                    params);
+    }
+
+    @GetMapping({"/v1/process-instances/{processInstanceId}", "/admin/v1/process-instances/{processInstanceId}"})
+    public Map<String, Object> processInstance(@PathVariable String processInstanceId) {
+        return resource(model.queryProcessInstance(processInstanceId)
+                                .orElseThrow(() -> notFound("process instance", processInstanceId)));
+    }
+
+    @GetMapping({"/v1/process-instances/{processInstanceId}/variables", "/admin/v1/process-instances/{processInstanceId}/variables"})
+    public Map<String, Object> processInstanceVariables(@PathVariable String processInstanceId,
+                                                        @RequestParam Map<String, String> params) {
+        return page("variables",
+                    model.queryVariables(processInstanceId),
+                    params);
+    }
+
+    @GetMapping({"/v1/tasks", "/admin/v1/tasks"})
+    public Map<String, Object> tasks(@RequestParam Map<String, String> params) {
+        return page("tasks",
+                    model.queryTasks(params),
+                    params);
+    }
+
+    @GetMapping({"/v1/tasks/{taskId}", "/admin/v1/tasks/{taskId}"})
+    public Map<String, Object> task(@PathVariable String taskId) {
+        return resource(model.queryTask(taskId)
+                                .orElseThrow(() -> notFound("task", taskId)));
+    }
+
+    @GetMapping({"/v1/tasks/{taskId}/variables", "/admin/v1/tasks/{taskId}/variables"})
+    public Map<String, Object> taskVariables(@PathVariable String taskId,
+                                             @RequestParam Map<String, String> params) {
+        return page("variables",
+                    model.queryTaskVariables(taskId),
+                    params);
+    }
+
+    private static ResponseStatusException notFound(String entity,
+                                                    String id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                           "Unable to find " + entity + " for the given id:'" + id + "'");
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.standin;
+
+import static org.activiti.cloud.qa.standin.HalResources.collection;
+import static org.activiti.cloud.qa.standin.HalResources.resource;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Runtime bundle endpoints used by the process and task runtime steps.
+ * Messages, signals and subprocesses are not modelled: the process definitions are
+ * linear sequences of user tasks.
+ */
+@RestController
+@RequestMapping("/rb")
+public class RuntimeBundleController {
+
+    private final StandInModel model;
+
+    public RuntimeBundleController(StandInModel model) {
+        this.model = model;
+    }
+
+    @GetMapping("/actuator/health")
+    public Map<String, Object> health() {
+        return Collections.singletonMap("status", "UP");
+    }
+
+    @GetMapping("/v1/process-definitions")
+    public Map<String, Object> processDefinitions() {
+        return collection("processDefinitions",
+                          model.processDefinitions());
+    }
+
+    @PostMapping("/v1/process-instances")
+    public Map<String, Object> startProcess(@RequestBody Map<String, Object> payload,
+                                            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return resource(model.startProcess((String) payload.get("processDefinitionKey"),
+                                           (String) payload.get("businessKey"),
+                                           (String) payload.get("name"),
+                                           variables(payload),
+                                           TokenController.username(authorization)));
+    }
+
+    @GetMapping({"/v1/process-instances/{processInstanceId}", "/admin/v1/process-instances/{processInstanceId}"})
+    public Map<String, Object> processInstance(@PathVariable String processInstanceId) {
+        return resource(model.processInstance(processInstanceId));
+    }
+
+    @PutMapping({"/v1/process-instances/{processInstanceId}", "/admin/v1/process-instances/{processInstanceId}"})
+    public Map<String, Object> updateProcessInstance(@PathVariable String processInstanceId,
+                                                     @RequestBody Map<String, Object> payload) {
+        return resource(model.renameProcessInstance(processInstanceId,
+                                                    (String) payload.get("name")));
+    }
+
+    @DeleteMapping({"/v1/process-instances/{processInstanceId}", "/admin/v1/process-instances/{processInstanceId}"})
+    public Map<String, Object> deleteProcessInstance(@PathVariable String processInstanceId) {
+        return resource(model.cancelProcessInstance(processInstanceId));
+    }
+
+    @PostMapping({"/v1/process-instances/{processInstanceId}/suspend", "/admin/v1/process-instances/{processInstanceId}/suspend"})
+    public Map<String, Object> suspendProcessInstance(@PathVariable String processInstanceId) {
+        return resource(model.suspendProcessInstance(processInstanceId));
+    }
+
+    @PostMapping({"/v1/process-instances/{processInstanceId}/resume", "/admin/v1/process-instances/{processInstanceId}/resume"})
+    public Map<String, Object> resumeProcessInstance(@PathVariable String processInstanceId) {
+        return resource(model.resumeProcessInstance(processInstanceId));
+    }
+
+    @GetMapping("/v1/process-instances/{processInstanceId}/tasks")
+    public Map<String, Object> processInstanceTasks(@PathVariable String processInstanceId) {
+        return collection("tasks",
+                          model.tasksOf(processInstanceId));
+    }
+
+    @GetMapping({"/v1/process-instances/{processInstanceId}/variables", "/admin/v1/process-instances/{processInstanceId}/variables"})
+    public Map<String, Object> processInstanceVariables(@PathVariable String processInstanceId) {
+        model.processInstance(processInstanceId);
+        return collection("variables",
+                          model.variablesOf(processInstanceId));
+    }
+
+    @PostMapping({"/v1/process-instances/{processInstanceId}/variables", "/admin/v1/process-instances/{processInstanceId}/variables"})
+    public void setProcessInstanceVariables(@PathVariable String processInstanceId,
+                                            @RequestBody Map<String, Object> payload) {
+        model.setVariables(processInstanceId,
+                           variables(payload));
+    }
+
+    @GetMapping("/v1/tasks")
+    public Map<String, Object> tasks(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return collection("tasks",
+                          model.tasksOfUser(TokenController.username(authorization)));
+    }
+
+    @PostMapping("/v1/tasks")
+    public Map<String, Object> createTask(@RequestBody Map<String, Object> payload,
+                                          @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return resource(model.createTask((String) payload.get("name"),
+                                         (String) payload.get("assignee"),
+                                         TokenController.username(authorization)));
+    }
+
+    @GetMapping({"/v1/tasks/{taskId}", "/admin/v1/tasks/{taskId}"})
+    public Map<String, Object> task(@PathVariable String taskId) {
+        return resource(model.task(taskId));
+    }
+
+    @PostMapping("/v1/tasks/{taskId}/claim")
+    public Map<String, Object> claimTask(@PathVariable String taskId,
+                                         @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return resource(model.claimTask(taskId,
+                                        TokenController.username(authorization)));
+    }
+
+    @PostMapping("/v1/tasks/{taskId}/release")
+    public Map<String, Object> releaseTask(@PathVariable String taskId) {
+        return resource(model.releaseTask(taskId));
+    }
+
+    @PostMapping("/v1/tasks/{taskId}/save")
+    public void saveTask(@PathVariable String taskId,
+                         @RequestBody(required = false) Map<String, Object> payload) {
+        model.saveTask(taskId,
+                       variables(payload));
+    }
+
+    @PostMapping({"/v1/tasks/{taskId}/complete", "/admin/v1/tasks/{taskId}/complete"})
+    public Map<String, Object> completeTask(@PathVariable String taskId,
+                                            @RequestBody(required = false) Map<String, Object> payload) {
+        return resource(model.completeTask(taskId,
+                                           variables(payload)));
+    }
+
+    @DeleteMapping({"/v1/tasks/{taskId}", "/admin/v1/tasks/{taskId}"})
+    public Map<String, Object> deleteTask(@PathVariable String taskId) {
+        return resource(model.deleteTask(taskId));
+    }
+
+    @GetMapping({"/v1/tasks/{taskId}/variables", "/admin/v1/tasks/{taskId}/variables"})
+    public Map<String, Object> taskVariables(@PathVariable String taskId) {
+        return collection("variables",
+                          model.taskVariables(taskId));
+    }
+
+    @PostMapping({"/v1/tasks/{taskId}/variables", "/admin/v1/tasks/{taskId}/variables"})
+    public void createTaskVariable(@PathVariable String taskId,
+                                   @RequestBody Map<String, Object> payload) {
+        model.setTaskVariable(taskId,
+                              (String) payload.get("name"),
+                              payload.get("value"));
+    }
+
+    @PutMapping({"/v1/tasks/{taskId}/variables/{variableName}", "/admin/v1/tasks/{taskId}/variables/{variableName}"})
+    public void updateTaskVariable(@PathVariable String taskId,
+                                   @PathVariable String variableName,
+                                   @RequestBody Map<String, Object> payload) {
+        model.setTaskVariable(taskId,
+                              variableName,
+                              payload.get("value"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> variables(Map<String, Object> payload) {
+        return payload == null ? null : (Map<String, Object>) payload.get("variables");
+    }
+}
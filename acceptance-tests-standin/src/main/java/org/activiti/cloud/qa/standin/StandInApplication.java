@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.standin;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+/**
+ * Local stand-in for the gateway, runtime bundle, query, audit and SSO services,
+ * to run the acceptance tests without a cluster with -Dprofile=standin.
+ */
+@SpringBootApplication
+@EnableConfigurationProperties(StandInProperties.class)
+public class StandInApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(StandInApplication.class,
+                              args);
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.standin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * In-memory process instances, tasks, variables and events.
+ * <p>
+ * Process definitions are linear sequences of user tasks taken from the configuration.
+ * The runtime bundle state changes immediately, the query and audit views only
+ * after the configured consistency delay.
+ */
+@Component
+public class StandInModel {
+
+    private final StandInProperties properties;
+
+    private final Map<String, Map<String, Object>> processInstances = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, Object>> tasks = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> taskPositions = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, Map<String, Object>>> variables = new ConcurrentHashMap<>();
+
+    private final DelayedView processInstanceView;
+
+    private final DelayedView taskView;
+
+    private final DelayedView variableView;
+
+    private final DelayedView eventView;
+
+    private long sequenceNumber;
+
+    public StandInModel(StandInProperties properties) {
+        this.properties = properties;
+        processInstanceView = new DelayedView(properties::getConsistencyDelay);
+        taskView = new DelayedView(properties::getConsistencyDelay);
+        variableView = new DelayedView(properties::getConsistencyDelay);
+        eventView = new DelayedView(properties::getConsistencyDelay);
+    }
+
+    public List<Map<String, Object>> processDefinitions() {
+        return properties.getProcessDefinitions()
+                .keySet()
+                .stream()
+                .map(key -> {
+                    Map<String, Object> processDefinition = new LinkedHashMap<>();
+                    processDefinition.put("id", processDefinitionId(key));
+                    processDefinition.put("key", key);
+                    processDefinition.put("name", key);
+                    processDefinition.put("version", 1);
+                    processDefinition.put("appName", properties.getAppName());
+                    processDefinition.put("serviceName", properties.getServiceName());
+                    return processDefinition;
+                })
+                .collect(Collectors.toList());
+    }
+
+    public synchronized Map<String, Object> startProcess(String processDefinitionKey,
+                                                         String businessKey,
+                                                         String name,
+                                                         Map<String, Object> startVariables,
+                                                         String user) {
+        if (!properties.getProcessDefinitions().containsKey(processDefinitionKey)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                              "Unable to find process definition for the given key:'" + processDefinitionKey + "'");
+        }
+        Map<String, Object> processInstance = new LinkedHashMap<>();
+        processInstance.put("id", UUID.randomUUID().toString());
+        processInstance.put("name", name);
+        processInstance.put("processDefinitionId", processDefinitionId(processDefinitionKey));
+        processInstance.put("processDefinitionKey", processDefinitionKey);
+        processInstance.put("processDefinitionVersion", 1);
+        processInstance.put("initiator", user);
+        processInstance.put("startDate", new Date());
+        processInstance.put("businessKey", businessKey);
+        processInstance.put("status", "RUNNING");
+        processInstance.put("parentId", null);
+        processInstance.put("appName", properties.getAppName());
+        processInstance.put("serviceName", properties.getServiceName());
+        processInstances.put(id(processInstance), processInstance);
+        publishProcessInstance(processInstance, "PROCESS_CREATED");
+        publishProcessInstance(processInstance, "PROCESS_STARTED");
+
+        setVariables(id(processInstance), startVariables);
+        createNextTask(processInstance, 0);
+        return new LinkedHashMap<>(processInstance);
+    }
+
+    public Map<String, Object> processInstance(String processInstanceId) {
+        return new LinkedHashMap<>(runtimeProcessInstance(processInstanceId));
+    }
+
+    public synchronized Map<String, Object> renameProcessInstance(String processInstanceId,
+                                                                  String name) {
+        Map<String, Object> processInstance = runtimeProcessInstance(processInstanceId);
+        processInstance.put("name", name);
+        publishProcessInstance(processInstance, "PROCESS_UPDATED");
+        return new LinkedHashMap<>(processInstance);
+    }
+
+    public synchronized Map<String, Object> cancelProcessInstance(String processInstanceId) {
+        Map<String, Object> processInstance = runtimeProcessInstance(processInstanceId);
+        tasksOf(processInstanceId).forEach(task -> endTask(task, "CANCELLED", "TASK_CANCELLED"));
+        processInstance.put("status", "CANCELLED");
+        processInstances.remove(processInstanceId);
+        publishProcessInstance(processInstance, "PROCESS_CANCELLED");
+        return new LinkedHashMap<>(processInstance);
+    }
+
+    public synchronized Map<String, Object> suspendProcessInstance(String processInstanceId) {
+        Map<String, Object> processInstance = runtimeProcessInstance(processInstanceId);
+        processInstance.put("status", "SUSPENDED");
+        publishProcessInstance(processInstance, "PROCESS_SUSPENDED");
+        return new LinkedHashMap<>(processInstance);
+    }
+
+    public synchronized Map<String, Object> resumeProcessInstance(String processInstanceId) {
+        Map<String, Object> processInstance = runtimeProcessInstance(processInstanceId);
+        processInstance.put("status", "RUNNING");
+        publishProcessInstance(processInstance, "PROCESS_RESUMED");
+        return new LinkedHashMap<>(processInstance);
+    }
+
+    public List<Map<String, Object>> tasksOf(String processInstanceId) {
+        runtimeProcessInstance(processInstanceId);
+        return tasks.values()
+                .stream()
+                .filter(task -> processInstanceId.equals(task.get("processInstanceId")))
+                .map(LinkedHashMap::new)
+                .collect(Collectors.toList());
+    }
+
+    public List<Map<String, Object>> variablesOf(String scopeId) {
+        return new ArrayList<>(variables.getOrDefault(scopeId, new LinkedHashMap<>()).values());
+    }
+
+    public synchronized void setVariables(String processInstanceId,
+                                          Map<String, Object> values) {
+        Map<String, Object> processInstance = runtimeProcessInstance(processInstanceId);
+        if (values == null) {
+            return;
+        }
+        values.forEach((name, value) -> putVariable(processInstanceId,
+                                                    name,
+                                                    value,
+                                                    null,
+                                                    processInstance));
+    }
+
+    public synchronized Map<String, Object> createTask(String name,
+                                                       String assignee,
+                                                       String user) {
+        Map<String, Object> task = newTask(name, null);
+        task.put("assignee", assignee == null ? user : assignee);
+        task.put("status", "ASSIGNED");
+        task.put("owner", user);
+        tasks.put(id(task), task);
+        publishTask(task, "TASK_CREATED");
+        publishTask(task, "TASK_ASSIGNED");
+        return new LinkedHashMap<>(task);
+    }
+
+    public Map<String, Object> task(String taskId) {
+        return new LinkedHashMap<>(runtimeTask(taskId));
+    }
+
+    public List<Map<String, Object>> tasksOfUser(String user) {
+        return tasks.values()
+                .stream()
+                .filter(task -> task.get("assignee") == null || user.equals(task.get("assignee")))
+                .map(LinkedHashMap::new)
+                .collect(Collectors.toList());
+    }
+
+    public synchronized Map<String, Object> claimTask(String taskId,
+                                                      String user) {
+        Map<String, Object> task = runtimeTask(taskId);
+        if (task.get("assignee") != null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                                              "The task " + taskId + " is already assigned");
+        }
+        task.put("assignee", user);
+        task.put("claimedDate", new Date());
+        task.put("status", "ASSIGNED");
+        publishTask(task, "TASK_ASSIGNED");
+        return new LinkedHashMap<>(task);
+    }
+
+    public synchronized Map<String, Object> releaseTask(String taskId) {
+        Map<String, Object> task = runtimeTask(taskId);
+        task.put("assignee", null);
+        task.put("claimedDate", null);
+        task.put("status", "CREATED");
+        publishTask(task, "TASK_UPDATED");
+        return new LinkedHashMap<>(task);
+    }
+
+    public synchronized void saveTask(String taskId,
+                                      Map<String, Object> values) {
+        Map<String, Object> task = runtimeTask(taskId);
+        if (values == null) {
+            return;
+        }
+        values.forEach((name, value) -> putVariable(taskId,
+                                                    name,
+                                                    value,
+                                                    task,
+                                                    processInstances.get(task.get("processInstanceId"))));
+    }
+
+    public List<Map<String, Object>> taskVariables(String taskId) {
+        runtimeTask(taskId);
+        return variablesOf(taskId);
+    }
+
+    public synchronized void setTaskVariable(String taskId,
+                                             String name,
+                                             Object value) {
+        saveTask(taskId,
+                 Collections.singletonMap(name, value));
+    }
+
+    public synchronized Map<String, Object> completeTask(String taskId,
+                                                         Map<String, Object> completionVariables) {
+        Map<String, Object> task = runtimeTask(taskId);
+        String processInstanceId = (String) task.get("processInstanceId");
+        if (processInstanceId != null) {
+            setVariables(processInstanceId, completionVariables);
+        }
+        endTask(task, "COMPLETED", "TASK_COMPLETED");
+        if (processInstanceId != null) {
+            Map<String, Object> processInstance = runtimeProcessInstance(processInstanceId);
+            createNextTask(processInstance, taskPositions.remove(taskId) + 1);
+        }
+        return new LinkedHashMap<>(task);
+    }
+
+    public synchronized Map<String, Object> deleteTask(String taskId) {
+        Map<String, Object> task = runtimeTask(taskId);
+        endTask(task, "DELETED", "TASK_CANCELLED");
+        return new LinkedHashMap<>(task);
+    }
+
+    public List<Map<String, Object>> queryProcessInstances(Map<String, String> filters) {
+        return filter(processInstanceView.all(), filters);
+    }
+
+    public Optional<Map<String, Object>> queryProcessInstance(String processInstanceId) {
+        return processInstanceView.get(processInstanceId);
+    }
+
+    public List<Map<String, Object>> queryTasks(Map<String, String> filters) {
+        return filter(taskView.all(), filters);
+    }
+
+    public Optional<Map<String, Object>> queryTask(String taskId) {
+        return taskView.get(taskId);
+    }
+
+    public List<Map<String, Object>> queryVariables(String processInstanceId) {
+        Map<String, String> filters = singletonFilter("processInstanceId", processInstanceId);
+        filters.put("taskVariable", "false");
+        return filter(variableView.all(), filters);
+    }
+
+    public List<Map<String, Object>> queryTaskVariables(String taskId) {
+        return filter(variableView.all(), singletonFilter("taskId", taskId));
+    }
+
+    public List<Map<String, Object>> auditEvents(Map<String, String> filters) {
+        List<Map<String, Object>> events = filter(eventView.all(), filters);
+        events.sort((first, second) -> Long.compare((Long) first.get("sequenceNumber"),
+                                                    (Long) second.get("sequenceNumber")));
+        return events;
+    }
+
+    private void createNextTask(Map<String, Object> processInstance,
+                                int position) {
+        String processDefinitionKey = (String) processInstance.get("processDefinitionKey");
+        List<String> taskNames = properties.taskNames(processDefinitionKey);
+        if (position >= taskNames.size()) {
+            processInstance.put("status", "COMPLETED");
+            processInstances.remove(id(processInstance));
+            publishProcessInstance(processInstance, "PROCESS_COMPLETED");
+            return;
+        }
+        Map<String, Object> task = newTask(taskNames.get(position), processInstance);
+        tasks.put(id(task), task);
+        taskPositions.put(id(task), position);
+        publishTask(task, "TASK_CREATED");
+        if (properties.getAssignedTaskDefinitions().contains(processDefinitionKey)) {
+            task.put("assignee", processInstance.get("initiator"));
+            task.put("status", "ASSIGNED");
+            publishTask(task, "TASK_ASSIGNED");
+        }
+    }
+
+    /**
+     * Creates or updates a variable of a process instance, or of a task when given
+     */
+    private void putVariable(String scopeId,
+                             String name,
+                             Object value,
+                             Map<String, Object> task,
+                             Map<String, Object> processInstance) {
+        Map<String, Map<String, Object>> scope = variables.computeIfAbsent(scopeId,
+                                                                           key -> new LinkedHashMap<>());
+        String eventType = scope.containsKey(name) ? "VARIABLE_UPDATED" : "VARIABLE_CREATED";
+        Map<String, Object> variable = new LinkedHashMap<>();
+        variable.put("name", name);
+        variable.put("type", value == null ? "null" : value.getClass().getSimpleName().toLowerCase());
+        variable.put("value", value);
+        variable.put("processInstanceId", task == null ? scopeId : task.get("processInstanceId"));
+        variable.put("taskId", task == null ? null : scopeId);
+        variable.put("taskVariable", task != null);
+        variable.put("appName", properties.getAppName());
+        variable.put("serviceName", properties.getServiceName());
+        scope.put(name, variable);
+        variableView.update(scopeId + "/" + name, new LinkedHashMap<>(variable));
+        publishEvent(eventType, name, variable, processInstance);
+    }
+
+    private Map<String, Object> newTask(String name,
+                                        Map<String, Object> processInstance) {
+        Map<String, Object> task = new LinkedHashMap<>();
+        task.put("id", UUID.randomUUID().toString());
+        task.put("name", name);
+        task.put("description", null);
+        task.put("createdDate", new Date());
+        task.put("claimedDate", null);
+        task.put("dueDate", null);
+        task.put("priority", 50);
+        task.put("assignee", null);
+        task.put("owner", null);
+        task.put("status", "CREATED");
+        task.put("processDefinitionId", processInstance == null ? null : processInstance.get("processDefinitionId"));
+        task.put("processInstanceId", processInstance == null ? null : processInstance.get("id"));
+        task.put("parentTaskId", null);
+        task.put("formKey", null);
+        task.put("appName", properties.getAppName());
+        task.put("serviceName", properties.getServiceName());
+        return task;
+    }
+
+    private void endTask(Map<String, Object> task,
+                         String status,
+                         String eventType) {
+        task.put("status", status);
+        tasks.remove(id(task));
+        if (!"COMPLETED".equals(status)) {
+            taskPositions.remove(id(task));
+        }
+        publishTask(task, eventType);
+    }
+
+    private void publishProcessInstance(Map<String, Object> processInstance,
+                                        String eventType) {
+        processInstanceView.update(id(processInstance), new LinkedHashMap<>(processInstance));
+        publishEvent(eventType, id(processInstance), processInstance, processInstance);
+    }
+
+    private void publishTask(Map<String, Object> task,
+                             String eventType) {
+        Map<String, Object> view = new LinkedHashMap<>(task);
+        taskView.update(id(task), view);
+        String processInstanceId = (String) task.get("processInstanceId");
+        publishEvent(eventType,
+                     id(task),
+                     view,
+                     processInstanceId == null ? null : processInstances.get(processInstanceId));
+    }
+
+    private void publishEvent(String eventType,
+                              String entityId,
+                              Map<String, Object> entity,
+                              Map<String, Object> processInstance) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("id", UUID.randomUUID().toString());
+        event.put("timestamp", System.currentTimeMillis());
+        event.put("eventType", eventType);
+        event.put("entityId", entityId);
+        event.put("entity", new LinkedHashMap<>(entity));
+        event.put("processInstanceId", processInstance == null ? null : processInstance.get("id"));
+        event.put("processDefinitionId", processInstance == null ? null : processInstance.get("processDefinitionId"));
+        event.put("processDefinitionKey", processInstance == null ? null : processInstance.get("processDefinitionKey"));
+        event.put("businessKey", processInstance == null ? null : processInstance.get("businessKey"));
+        event.put("sequenceNumber", ++sequenceNumber);
+        event.put("appName", properties.getAppName());
+        event.put("serviceName", properties.getServiceName());
+        eventView.update(id(event), event);
+    }
+
+    private Map<String, Object> runtimeProcessInstance(String processInstanceId) {
+        return Optional.ofNullable(processInstances.get(processInstanceId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                                               "Unable to find process instance for the given id:'" + processInstanceId + "'"));
+    }
+
+    private Map<String, Object> runtimeTask(String taskId) {
+        return Optional.ofNullable(tasks.get(taskId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                                               "Unable to find task for the given id: " + taskId));
+    }
+
+    private static List<Map<String, Object>> filter(List<Map<String, Object>> entities,
+                                                    Map<String, String> filters) {
+        return entities.stream()
+                .filter(entity -> DelayedView.matches(entity, filters))
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, String> singletonFilter(String name,
+                                                       String value) {
+        Map<String, String> filters = new LinkedHashMap<>();
+        filters.put(name, value);
+        return filters;
+    }
+
+    private static String processDefinitionId(String processDefinitionKey) {
+        return processDefinitionKey + ":1";
+    }
+
+    private static String id(Map<String, Object> entity) {
+        return (String) entity.get("id");
+    }
+}
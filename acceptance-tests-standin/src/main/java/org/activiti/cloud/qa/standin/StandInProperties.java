@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.standin;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("standin")
+public class StandInProperties {
+
+    /**
+     * Time added to the handling of every request
+     */
+    private Duration latency = Duration.ZERO;
+
+    /**
+     * Time before a change made through the runtime bundle shows in the query and audit services
+     */
+    private Duration consistencyDelay = Duration.ZERO;
+
+    private String serviceName = "rb";
+
+    private String appName = "default-app";
+
+    /**
+     * Names of the user tasks, in order, of each deployed process definition key
+     */
+    private Map<String, List<String>> processDefinitions = new LinkedHashMap<>();
+
+    /**
+     * Process definition keys whose tasks are assigned to the initiator rather than left to claim
+     */
+    private List<String> assignedTaskDefinitions = new ArrayList<>();
+
+    public Duration getLatency() {
+        return latency;
+    }
+
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    public Duration getConsistencyDelay() {
+        return consistencyDelay;
+    }
+
+    public void setConsistencyDelay(Duration consistencyDelay) {
+        this.consistencyDelay = consistencyDelay;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public void setAppName(String appName) {
+        this.appName = appName;
+    }
+
+    public Map<String, List<String>> getProcessDefinitions() {
+        return processDefinitions;
+    }
+
+    public void setProcessDefinitions(Map<String, List<String>> processDefinitions) {
+        this.processDefinitions = processDefinitions;
+    }
+
+    public List<String> getAssignedTaskDefinitions() {
+        return assignedTaskDefinitions;
+    }
+
+    public void setAssignedTaskDefinitions(List<String> assignedTaskDefinitions) {
+        this.assignedTaskDefinitions = assignedTaskDefinitions;
+    }
+
+    public List<String> taskNames(String processDefinitionKey) {
+        return processDefinitions.getOrDefault(processDefinitionKey,
+                                               new ArrayList<>());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.standin;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * OpenID Connect token endpoint issuing unsigned tokens for any user and password.
+ * The issuer of the tokens is the URL of the realm, which the token refresh of the
+ * acceptance tests posts to.
+ */
+@RestController
+public class TokenController {
+
+    private static final long EXPIRES_IN_SECONDS = TimeUnit.MINUTES.toSeconds(5);
+
+    private static final String DEFAULT_USER = "testuser";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @PostMapping(path = "/auth/realms/{realm}/protocol/openid-connect/token",
+            consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public Map<String, Object> token(@PathVariable String realm,
+                                     @RequestParam Map<String, String> form) throws JsonProcessingException {
+        String username = "refresh_token".equals(form.get("grant_type"))
+                ? username("Bearer " + form.get("refresh_token"))
+                : form.getOrDefault("username", DEFAULT_USER);
+        String clientId = form.getOrDefault("client_id", "activiti");
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("access_token", jwt(realm, username, clientId, EXPIRES_IN_SECONDS));
+        response.put("expires_in", EXPIRES_IN_SECONDS);
+        response.put("refresh_token", jwt(realm, username, clientId, 2 * EXPIRES_IN_SECONDS));
+        response.put("refresh_expires_in", 2 * EXPIRES_IN_SECONDS);
+        response.put("token_type", "bearer");
+        response.put("session_state", realm);
+        response.put("scope", "profile email");
+        return response;
+    }
+
+    /**
+     * User of the bearer token of a request
+     */
+    static String username(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return DEFAULT_USER;
+        }
+        String[] parts = authorization.substring("Bearer ".length()).split("\\.");
+        if (parts.length < 2) {
+            return DEFAULT_USER;
+        }
+        try {
+            JsonNode claims = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            return claims.path("preferred_username").asText(DEFAULT_USER);
+        } catch (Exception e) {
+            return DEFAULT_USER;
+        }
+    }
+
+    private static String jwt(String realm,
+                              String username,
+                              String clientId,
+                              long expiresInSeconds) throws JsonProcessingException {
+        long now = System.currentTimeMillis() / 1000;
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/auth/realms/{realm}")
+                .buildAndExpand(realm)
+                .toUriString());
+        claims.put("sub", username);
+        claims.put("azp", clientId);
+        claims.put("iat", now);
+        claims.put("exp", now + expiresInSeconds);
+        claims.put("preferred_username", username);
+        return encode("{\"alg\":\"none\",\"typ\":\"JWT\"}") + "." + encode(objectMapper.writeValueAsString(claims)) + ".";
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
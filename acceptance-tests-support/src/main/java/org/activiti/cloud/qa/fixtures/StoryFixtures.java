@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.fixtures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.activiti.cloud.acc.shared.rest.TokenHolder;
+import org.activiti.cloud.qa.tokens.TokenCache;
+
+/**
+ * Named fixtures set up once per story and shared by the scenarios of the story that only read them.
+ * <p>
+ * The first scenario acquiring a fixture runs its setup and the following ones get the same value.
+ * The dirty context is cleaned up after every scenario, so the setup creates its entities without
+ * marking them dirty, and the fixture is torn down at the end of the story instead, with the access
+ * token of the user who set it up. Fixtures are not reference counted: a fixture lives until the end
+ * of its story, even when no later scenario acquires it.
+ */
+public class StoryFixtures {
+
+    private static final Map<String, Fixture<?>> fixtures = new LinkedHashMap<>();
+
+    /**
+     * The fixture of the given name, set up by the given setup unless the story already did.
+     * The teardown gets the access token of the owner of the fixture and its value.
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized <T> T acquire(String name,
+                                             Supplier<T> setup,
+                                             BiConsumer<String, T> teardown) {
+        Fixture<?> fixture = fixtures.get(name);
+        if (fixture == null) {
+            fixture = new Fixture<>(TokenHolder.getAuthToken().getAccess_token(),
+                                    setup.get(),
+                                    teardown);
+            fixtures.put(name,
+                         fixture);
+        }
+        return (T) fixture.value;
+    }
+
+    public static synchronized boolean isSetUp(String name) {
+        return fixtures.containsKey(name);
+    }
+
+    /**
+     * Tears down the fixtures of the story, from the most recent
+     */
+    public static synchronized void releaseStory() {
+        List<Fixture<?>> released = new ArrayList<>(fixtures.values());
+        fixtures.clear();
+        Collections.reverse(released);
+
+        List<String> failures = new ArrayList<>();
+        for (Fixture<?> fixture : released) {
+            try {
+                fixture.tearDown();
+            } catch (RuntimeException failure) {
+                failures.add(failure.toString());
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Unable to tear down " + failures.size() + " story fixtures: " + failures);
+        }
+    }
+
+    private static class Fixture<T> {
+
+        private final String ownerToken;
+
+        private final T value;
+
+        private final BiConsumer<String, T> teardown;
+
+        private Fixture(String ownerToken,
+                        T value,
+                        BiConsumer<String, T> teardown) {
+            this.ownerToken = ownerToken;
+            this.value = value;
+            this.teardown = teardown;
+        }
+
+        private void tearDown() {
+            teardown.accept(TokenCache.current(ownerToken),
+                            value);
+        }
+    }
+}
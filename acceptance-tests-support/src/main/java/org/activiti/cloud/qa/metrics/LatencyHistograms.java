@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Named latency histograms shared by all the steps of a run.
+ * Values are recorded in microseconds.
+ */
+public class LatencyHistograms {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+
+    public static void recordNanos(String name,
+                                   long durationNanos) {
+        recordMicros(name,
+                     TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+
+    public static void recordMillis(String name,
+                                    long durationMillis) {
+        recordMicros(name,
+                     TimeUnit.MILLISECONDS.toMicros(durationMillis));
+    }
+
+    /**
+     * Records into a histogram of {@link #newHistogram()}, kept apart from the named ones
+     */
+    public static void recordNanos(Histogram histogram,
+                                   long durationNanos) {
+        recordMicros(histogram,
+                     TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+
+    private static void recordMicros(String name,
+                                     long durationMicros) {
+        recordMicros(histogram(name),
+                     durationMicros);
+    }
+
+    private static void recordMicros(Histogram histogram,
+                                     long durationMicros) {
+        histogram.recordValue(Math.min(Math.max(durationMicros, 0),
+                                       HIGHEST_TRACKABLE_MICROS));
+    }
+
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name,
+                                          key -> newHistogram());
+    }
+
+    /**
+     * A histogram of the range and precision of the named ones, for the latencies of a single run
+     */
+    public static Histogram newHistogram() {
+        return new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS,
+                                       SIGNIFICANT_DIGITS);
+    }
+
+    public static double percentileMillis(String name,
+                                          double percentile) {
+        return histogram(name).getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public static LatencySummary summary(String name) {
+        return LatencySummary.of(histogram(name));
+    }
+
+    public static Map<String, LatencySummary> summaries(String prefix) {
+        Map<String, LatencySummary> summaries = new LinkedHashMap<>();
+        histograms.forEach((name, histogram) -> {
+            if (name.startsWith(prefix)) {
+                summaries.put(name, LatencySummary.of(histogram));
+            }
+        });
+        return summaries;
+    }
+}
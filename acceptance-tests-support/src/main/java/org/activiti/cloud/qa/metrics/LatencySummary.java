@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Percentiles of a latency histogram, in milliseconds
+ */
+public class LatencySummary {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private long count;
+
+    private double mean;
+
+    private double p50;
+
+    private double p90;
+
+    private double p95;
+
+    private double p99;
+
+    private double max;
+
+    private Histogram snapshot;
+
+    public static LatencySummary of(Histogram histogram) {
+        Histogram snapshot = histogram.copy();
+
+        LatencySummary summary = new LatencySummary();
+        summary.snapshot = snapshot;
+        summary.count = snapshot.getTotalCount();
+        if (summary.count > 0) {
+            summary.mean = snapshot.getMean() / MICROS_PER_MILLI;
+            summary.p50 = snapshot.getValueAtPercentile(50) / MICROS_PER_MILLI;
+            summary.p90 = snapshot.getValueAtPercentile(90) / MICROS_PER_MILLI;
+            summary.p95 = snapshot.getValueAtPercentile(95) / MICROS_PER_MILLI;
+            summary.p99 = snapshot.getValueAtPercentile(99) / MICROS_PER_MILLI;
+            summary.max = snapshot.getMaxValue() / MICROS_PER_MILLI;
+        }
+        return summary;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP95() {
+        return p95;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Any percentile of the summarized histogram, as it was when summarized
+     */
+    public double percentileMillis(double percentile) {
+        return count == 0 ? 0 : snapshot.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.metrics;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the eventual consistency lag between a runtime bundle command
+ * and the first read of another service that shows its effect.
+ * <p>
+ * The checks of the query and audit steps already poll until the change is visible,
+ * so the lag is the time between the completion of the last command on the entity
+ * and the return of the check. Each histogram records a command at most once, so
+ * the query and the audit views of the same command are measured independently.
+ * A new command on the entity replaces the previous one, and {@link #forgetCommands()}
+ * drops them all at the end of the scenario.
+ * <p>
+ * This class is shared by the story workers, so the commands are kept per worker, told
+ * apart by the context class loader of the calling thread, and a worker only forgets
+ * its own.
+ */
+public class PropagationLag {
+
+    private static final Map<ClassLoader, Map<String, Command>> workerCommands = new ConcurrentHashMap<>();
+
+    /**
+     * Marks the time a runtime bundle command on the given entities returned
+     */
+    public static void commandCompleted(String... entityIds) {
+        commandCompletedAt(System.currentTimeMillis(),
+                           entityIds);
+    }
+
+    /**
+     * Marks the time a runtime bundle command returned, for entities such as the tasks
+     * created by a process start that are only known after further reads
+     */
+    public static void commandCompletedAt(long completedAtMillis,
+                                          String... entityIds) {
+        for (String entityId : entityIds) {
+            if (entityId != null) {
+                commands().put(entityId,
+                               new Command(completedAtMillis));
+            }
+        }
+    }
+
+    /**
+     * Runs the check and records the lag since the last command on the entity
+     * under the given histogram. Nothing is recorded when the check fails or
+     * when the last command on the entity was already measured by the histogram.
+     *
+     * @return whether a lag was recorded
+     */
+    public static boolean measure(String histogramName,
+                                  String entityId,
+                                  Runnable check) {
+        check.run();
+        long visibleAt = System.currentTimeMillis();
+
+        Command command = commands().get(entityId);
+        if (command == null || !command.measuredHistograms.add(histogramName)) {
+            return false;
+        }
+        LatencyHistograms.recordMillis(histogramName,
+                                       visibleAt - command.completedAtMillis);
+        return true;
+    }
+
+    /**
+     * Drops the commands of the scenario of the calling worker, the next ones are on entities of their own
+     */
+    public static void forgetCommands() {
+        workerCommands.remove(worker());
+    }
+
+    private static Map<String, Command> commands() {
+        return workerCommands.computeIfAbsent(worker(),
+                                              worker -> new ConcurrentHashMap<>());
+    }
+
+    private static ClassLoader worker() {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return contextClassLoader != null ? contextClassLoader : PropagationLag.class.getClassLoader();
+    }
+
+    private static class Command {
+
+        private final long completedAtMillis;
+
+        private final Set<String> measuredHistograms = ConcurrentHashMap.newKeySet();
+
+        private Command(long completedAtMillis) {
+            this.completedAtMillis = completedAtMillis;
+        }
+    }
+}
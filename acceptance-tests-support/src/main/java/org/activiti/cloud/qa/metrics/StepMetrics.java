@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Call count, error count and latency of the steps of the step libraries.
+ * <p>
+ * Each step is timed into the acceptance.step Micrometer timer, tagged with the step
+ * and its outcome, of a registry added to the global Micrometer registry, and into a
+ * latency histogram named steps.&lt;step library&gt;.&lt;step&gt;.
+ */
+public class StepMetrics {
+
+    public static final String HISTOGRAM_PREFIX = "steps.";
+
+    public static final String TIMER_NAME = "acceptance.step";
+
+    private static final MeterRegistry registry = new SimpleMeterRegistry();
+
+    static {
+        Metrics.addRegistry(registry);
+    }
+
+    public static void record(String step,
+                              long durationNanos,
+                              boolean failed) {
+        Timer.builder(TIMER_NAME)
+                .tag("step",
+                     step)
+                .tag("outcome",
+                     failed ? "error" : "success")
+                .register(Metrics.globalRegistry)
+                .record(durationNanos,
+                        TimeUnit.NANOSECONDS);
+        LatencyHistograms.recordNanos(HISTOGRAM_PREFIX + step,
+                                      durationNanos);
+    }
+
+    public static MeterRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * Summaries of the steps called so far, by step
+     */
+    public static Map<String, StepSummary> summaries() {
+        Map<String, StepSummary> summaries = new LinkedHashMap<>();
+        LatencyHistograms.summaries(HISTOGRAM_PREFIX).forEach((histogramName, latency) -> {
+            String step = histogramName.substring(HISTOGRAM_PREFIX.length());
+            summaries.put(step,
+                          new StepSummary(latency.getCount(),
+                                          errors(step),
+                                          latency));
+        });
+        return summaries;
+    }
+
+    /**
+     * Writes the summaries of the steps as JSON to the given file, when any step was called
+     */
+    public static void writeSummary(Path file) {
+        Map<String, StepSummary> summaries = summaries();
+        if (summaries.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            new ObjectMapper()
+                    .writerWithDefaultPrettyPrinter()
+                    .writeValue(file.toFile(),
+                                summaries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write step metrics to " + file,
+                                           e);
+        }
+    }
+
+    private static long errors(String step) {
+        Timer errors = registry.find(TIMER_NAME)
+                .tag("step",
+                     step)
+                .tag("outcome",
+                     "error")
+                .timer();
+        return errors == null ? 0 : errors.count();
+    }
+}
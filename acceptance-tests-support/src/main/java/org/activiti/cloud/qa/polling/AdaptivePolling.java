@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.polling;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+import org.awaitility.Awaitility;
+import org.awaitility.core.ConditionFactory;
+
+/**
+ * Polling of the eventually consistent services.
+ * <p>
+ * Polls start tight and back off exponentially. The waits created with {@link #await(String, String)}
+ * make their first check shortly before the smoothed duration of the earlier waits of the same check,
+ * but never later than half of their timeout, instead of polling from the start. The time from the
+ * first check to the success is recorded in the wait.&lt;endpoint&gt;.&lt;check&gt; histogram.
+ */
+public class AdaptivePolling {
+
+    public static final String RUNTIME_BUNDLE = "runtime-bundle";
+
+    public static final String QUERY = "query";
+
+    public static final String AUDIT = "audit";
+
+    public static final String HISTOGRAM_PREFIX = "wait.";
+
+    /**
+     * Same as the default timeout of Awaitility
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final long INITIAL_INTERVAL_MILLIS = 50;
+
+    private static final long MAX_INTERVAL_MILLIS = 1000;
+
+    private static final double FIRST_POLL_FRACTION = 0.8;
+
+    private static final double SMOOTHING = 0.5;
+
+    private static final Map<String, Double> smoothedWaitMillis = new ConcurrentHashMap<>();
+
+    /**
+     * Replaces the fixed default poll interval of Awaitility, used by the waits of the shared step libraries too
+     */
+    public static void installDefaults() {
+        Awaitility.setDefaultPollDelay(INITIAL_INTERVAL_MILLIS,
+                                       TimeUnit.MILLISECONDS);
+        Awaitility.setDefaultPollInterval(new BackoffPollInterval(INITIAL_INTERVAL_MILLIS,
+                                                                  MAX_INTERVAL_MILLIS));
+    }
+
+    /**
+     * Wait of a check on the given endpoint, with the default timeout
+     */
+    public static ConditionFactory await(String endpoint,
+                                         String check) {
+        return await(endpoint,
+                     check,
+                     DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Wait of a check on the given endpoint, learning when to check first from the earlier waits of the same check.
+     * A zero timeout checks once.
+     */
+    public static ConditionFactory await(String endpoint,
+                                         String check,
+                                         Duration atMost) {
+        String histogramName = HISTOGRAM_PREFIX + endpoint + "." + check;
+        long atMostMillis = Math.max(atMost.toMillis(),
+                                     INITIAL_INTERVAL_MILLIS);
+        long pollDelayMillis = Math.min(firstPollDelayMillis(histogramName),
+                                        atMostMillis / 2);
+        return Awaitility.await()
+                .atMost(atMostMillis,
+                        TimeUnit.MILLISECONDS)
+                .pollDelay(pollDelayMillis,
+                           TimeUnit.MILLISECONDS)
+                .pollInterval(new BackoffPollInterval(INITIAL_INTERVAL_MILLIS,
+                                                      MAX_INTERVAL_MILLIS))
+                .conditionEvaluationListener(condition -> {
+                    if (condition.isSatisfied()) {
+                        long waitMillis = condition.getElapsedTimeInMS();
+                        LatencyHistograms.recordMillis(histogramName,
+                                                       Math.max(waitMillis - pollDelayMillis,
+                                                                0));
+                        smoothedWaitMillis.merge(histogramName,
+                                                 (double) waitMillis,
+                                                 (smoothed, latest) -> smoothed + SMOOTHING * (latest - smoothed));
+                    }
+                });
+    }
+
+    private static long firstPollDelayMillis(String histogramName) {
+        Double waitMillis = smoothedWaitMillis.get(histogramName);
+        if (waitMillis == null) {
+            return INITIAL_INTERVAL_MILLIS;
+        }
+        return Math.max(INITIAL_INTERVAL_MILLIS,
+                        (long) (waitMillis * FIRST_POLL_FRACTION));
+    }
+}
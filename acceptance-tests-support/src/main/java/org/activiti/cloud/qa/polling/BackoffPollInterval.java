@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.polling;
+
+import java.util.concurrent.TimeUnit;
+
+import org.awaitility.Duration;
+import org.awaitility.pollinterval.PollInterval;
+
+/**
+ * Poll interval starting at an initial interval and doubling after each poll, up to a maximum
+ */
+public class BackoffPollInterval implements PollInterval {
+
+    private final long initialMillis;
+
+    private final long maxMillis;
+
+    public BackoffPollInterval(long initialMillis,
+                               long maxMillis) {
+        if (initialMillis < 1 || maxMillis < initialMillis) {
+            throw new IllegalArgumentException("Poll intervals must be positive and the maximum not less than the initial interval");
+        }
+        this.initialMillis = initialMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    @Override
+    public Duration next(int pollCount,
+                         Duration previousDuration) {
+        double millis = initialMillis * Math.pow(2,
+                                                 Math.max(pollCount - 1,
+                                                          0));
+        return new Duration(Math.min((long) millis,
+                                     maxMillis),
+                            TimeUnit.MILLISECONDS);
+    }
+}
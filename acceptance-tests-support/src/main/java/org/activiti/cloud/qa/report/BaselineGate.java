@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.report;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fails the build when a percentile of the story or step durations of the {@link BuildSummary}
+ * of the run grew too much over the one of the baseline summary committed with the module.
+ * <p>
+ * Only the stories and steps present in both summaries are compared, and the ones whose baseline
+ * percentile is below a minimum duration are left out, since a few milliseconds of noise would
+ * exceed any threshold. Without a baseline file there is nothing to compare and the gate passes,
+ * unless the baseline is required: a missing baseline or build summary then fails the gate.
+ * <p>
+ * Run with the summary of the run, the baseline file, the percentile field (e.g. p95), the
+ * allowed increase in percent, the minimum baseline duration in milliseconds and optionally
+ * whether the baseline is required as arguments.
+ */
+public class BaselineGate {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaselineGate.class);
+
+    private final String percentile;
+
+    private final double maxIncreasePercent;
+
+    private final double minBaselineMillis;
+
+    public BaselineGate(String percentile,
+                        double maxIncreasePercent,
+                        double minBaselineMillis) {
+        this.percentile = percentile;
+        this.maxIncreasePercent = maxIncreasePercent;
+        this.minBaselineMillis = minBaselineMillis;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            throw new IllegalArgumentException("Usage: BaselineGate <build summary> <baseline> <percentile> <max increase %> <min baseline ms> [baseline required]");
+        }
+        Path summary = Paths.get(args[0]);
+        Path baseline = Paths.get(args[1]);
+        boolean required = args.length > 5 && Boolean.parseBoolean(args[5]);
+        if (!Files.exists(baseline)) {
+            if (required) {
+                throw new IllegalStateException("No performance baseline " + baseline + ", required by -Dacceptance.baseline.required");
+            }
+            logger.warn("No performance baseline {}, skipping the comparison",
+                        baseline);
+            return;
+        }
+        if (!Files.exists(summary)) {
+            if (required) {
+                throw new IllegalStateException("No build summary " + summary + " to compare with the required baseline " + baseline);
+            }
+            logger.warn("No build summary {}, skipping the comparison",
+                        summary);
+            return;
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> regressions = new BaselineGate(args[2],
+                                                    Double.parseDouble(args[3]),
+                                                    Double.parseDouble(args[4]))
+                .regressions(objectMapper.readTree(summary.toFile()),
+                             objectMapper.readTree(baseline.toFile()));
+        if (regressions.isEmpty()) {
+            logger.info("No performance regression against {}",
+                        baseline);
+            return;
+        }
+        throw new IllegalStateException("Performance regressions against " + baseline + ":"
+                                                + System.lineSeparator()
+                                                + String.join(System.lineSeparator(),
+                                                              regressions));
+    }
+
+    /**
+     * Describes every story and step whose percentile exceeds the allowed increase over the baseline
+     */
+    public List<String> regressions(JsonNode summary,
+                                    JsonNode baseline) {
+        List<String> regressions = new ArrayList<>();
+        compare("story",
+                summary.path("stories"),
+                baseline.path("stories"),
+                regressions);
+        compare("step",
+                summary.path("steps"),
+                baseline.path("steps"),
+                regressions);
+        return regressions;
+    }
+
+    private void compare(String kind,
+                         JsonNode current,
+                         JsonNode baseline,
+                         List<String> regressions) {
+        for (Iterator<Map.Entry<String, JsonNode>> entries = current.fields(); entries.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            JsonNode baselineEntry = baseline.path(entry.getKey());
+            if (!baselineEntry.has(percentile) || !entry.getValue().has(percentile)) {
+                continue;
+            }
+            double baselineMillis = baselineEntry.path(percentile).asDouble();
+            double currentMillis = entry.getValue().path(percentile).asDouble();
+            if (baselineMillis < minBaselineMillis) {
+                continue;
+            }
+            double increasePercent = (currentMillis - baselineMillis) * 100 / baselineMillis;
+            if (increasePercent > maxIncreasePercent) {
+                regressions.add(String.format("%s '%s' %s %.1f ms, baseline %.1f ms (+%.0f%%, allowed +%.0f%%)",
+                                              kind,
+                                              entry.getKey(),
+                                              percentile,
+                                              currentMillis,
+                                              baselineMillis,
+                                              increasePercent,
+                                              maxIncreasePercent));
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.report;
+
+import java.util.Map;
+
+import org.activiti.cloud.qa.metrics.LatencySummary;
+
+/**
+ * Timing summary of the scenarios of a build, compared by CI against the summary of a baseline build
+ */
+public class BuildSummary {
+
+    private final String build;
+
+    private final String module;
+
+    private final long scenarios;
+
+    private final long failedScenarios;
+
+    private final long durationMillis;
+
+    private final Map<String, LatencySummary> stories;
+
+    private final Map<String, LatencySummary> steps;
+
+    public BuildSummary(String build,
+                        String module,
+                        long scenarios,
+                        long failedScenarios,
+                        long durationMillis,
+                        Map<String, LatencySummary> stories,
+                        Map<String, LatencySummary> steps) {
+        this.build = build;
+        this.module = module;
+        this.scenarios = scenarios;
+        this.failedScenarios = failedScenarios;
+        this.durationMillis = durationMillis;
+        this.stories = stories;
+        this.steps = steps;
+    }
+
+    public String getBuild() {
+        return build;
+    }
+
+    public String getModule() {
+        return module;
+    }
+
+    public long getScenarios() {
+        return scenarios;
+    }
+
+    public long getFailedScenarios() {
+        return failedScenarios;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Scenario durations, by story
+     */
+    public Map<String, LatencySummary> getStories() {
+        return stories;
+    }
+
+    /**
+     * Step durations, by story and step, see {@link TimingReport#stepKey(String, String)}
+     */
+    public Map<String, LatencySummary> getSteps() {
+        return steps;
+    }
+}
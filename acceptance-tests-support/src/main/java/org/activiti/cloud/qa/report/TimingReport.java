@@ -0,0 +1,297 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.activiti.cloud.qa.metrics.LatencySummary;
+
+/**
+ * Collects the durations of the scenarios and steps from the Serenity outcomes of a module.
+ * <p>
+ * Writes every scenario and step, nested steps included, as a row of timings.csv, and the
+ * percentiles of the scenario durations by story and of the story steps by story and step to
+ * build-summary.json, see {@link BuildSummary}. The outcome files are read one at a time and
+ * streamed, keeping only the fields of the report, so that the report data and screenshots
+ * attached to the steps are never loaded.
+ * <p>
+ * Run after the Serenity aggregation with the Serenity output directory, the report directory,
+ * the module and the build identifier as arguments.
+ */
+public class TimingReport {
+
+    public static final String TIMINGS_FILE_NAME = "timings.csv";
+
+    public static final String SUMMARY_FILE_NAME = "build-summary.json";
+
+    private static final String[] COLUMNS = {"story", "scenario", "result", "depth", "step", "start_time", "duration_ms"};
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(2);
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final Set<String> OUTCOME_FIELDS = new HashSet<>(Arrays.asList("userStory",
+                                                                                  "storyName",
+                                                                                  "title",
+                                                                                  "name",
+                                                                                  "result",
+                                                                                  "startTime",
+                                                                                  "duration",
+                                                                                  "testSteps",
+                                                                                  "description",
+                                                                                  "children"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, Histogram> storyDurations = new TreeMap<>();
+
+    private final Map<String, Histogram> stepDurations = new TreeMap<>();
+
+    private long scenarios;
+
+    private long failedScenarios;
+
+    private long durationMillis;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: TimingReport <serenity output directory> <report directory> [module] [build]");
+        }
+        Path outcomeDirectory = Paths.get(args[0]);
+        if (!Files.isDirectory(outcomeDirectory)) {
+            return;
+        }
+        new TimingReport().write(outcomeDirectory,
+                                 Paths.get(args[1]),
+                                 args.length > 2 ? args[2] : "",
+                                 args.length > 3 ? args[3] : "");
+    }
+
+    /**
+     * Key of a step in the summaries, the step prefixed with its story
+     */
+    public static String stepKey(String story,
+                                 String step) {
+        return story + " :: " + step;
+    }
+
+    public void write(Path outcomeDirectory,
+                      Path reportDirectory,
+                      String module,
+                      String build) throws IOException {
+        Files.createDirectories(reportDirectory);
+        try (BufferedWriter timings = Files.newBufferedWriter(reportDirectory.resolve(TIMINGS_FILE_NAME),
+                                                              StandardCharsets.UTF_8);
+             DirectoryStream<Path> outcomes = Files.newDirectoryStream(outcomeDirectory,
+                                                                       "*.json")) {
+            writeRow(timings,
+                     COLUMNS);
+            for (Path outcome : outcomes) {
+                JsonNode scenario = readOutcome(outcome);
+                if (scenario.has("testSteps") && scenario.has("duration")) {
+                    addScenario(timings,
+                                scenario);
+                }
+            }
+        }
+
+        objectMapper.writerWithDefaultPrettyPrinter()
+                .writeValue(reportDirectory.resolve(SUMMARY_FILE_NAME).toFile(),
+                            new BuildSummary(build,
+                                             module,
+                                             scenarios,
+                                             failedScenarios,
+                                             durationMillis,
+                                             summaries(storyDurations),
+                                             summaries(stepDurations)));
+    }
+
+    /**
+     * The fields of the outcome used by the report, the others are skipped while parsing
+     */
+    private JsonNode readOutcome(Path outcome) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(outcome.toFile())) {
+            if (parser.nextToken() == null) {
+                return MissingNode.getInstance();
+            }
+            return read(parser);
+        }
+    }
+
+    private JsonNode read(JsonParser parser) throws IOException {
+        JsonNodeFactory nodes = objectMapper.getNodeFactory();
+        switch (parser.getCurrentToken()) {
+            case START_OBJECT:
+                ObjectNode object = nodes.objectNode();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if (OUTCOME_FIELDS.contains(field)) {
+                        object.set(field,
+                                   read(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                return object;
+            case START_ARRAY:
+                ArrayNode array = nodes.arrayNode();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    array.add(read(parser));
+                }
+                return array;
+            case VALUE_STRING:
+                return nodes.textNode(parser.getText());
+            case VALUE_NUMBER_INT:
+                return nodes.numberNode(parser.getLongValue());
+            case VALUE_NUMBER_FLOAT:
+                return nodes.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return nodes.booleanNode(parser.getBooleanValue());
+            default:
+                return nodes.nullNode();
+        }
+    }
+
+    private void addScenario(BufferedWriter timings,
+                             JsonNode scenario) throws IOException {
+        String story = text(scenario.path("userStory"),
+                            "storyName",
+                            "name");
+        String title = text(scenario,
+                            "title",
+                            "name");
+        String result = scenario.path("result").asText();
+        long duration = scenario.path("duration").asLong();
+
+        scenarios++;
+        if ("FAILURE".equals(result) || "ERROR".equals(result) || "COMPROMISED".equals(result)) {
+            failedScenarios++;
+        }
+        durationMillis += duration;
+        record(storyDurations,
+               story,
+               duration);
+
+        writeRow(timings,
+                 story,
+                 title,
+                 result,
+                 "0",
+                 "",
+                 scenario.path("startTime").asText(),
+                 String.valueOf(duration));
+        for (JsonNode step : scenario.path("testSteps")) {
+            record(stepDurations,
+                   stepKey(story,
+                           step.path("description").asText()),
+                   step.path("duration").asLong());
+            addStep(timings,
+                    story,
+                    title,
+                    step,
+                    1);
+        }
+    }
+
+    private void addStep(BufferedWriter timings,
+                         String story,
+                         String scenario,
+                         JsonNode step,
+                         int depth) throws IOException {
+        writeRow(timings,
+                 story,
+                 scenario,
+                 step.path("result").asText(),
+                 String.valueOf(depth),
+                 step.path("description").asText(),
+                 step.path("startTime").asText(),
+                 String.valueOf(step.path("duration").asLong()));
+        for (JsonNode child : step.path("children")) {
+            addStep(timings,
+                    story,
+                    scenario,
+                    child,
+                    depth + 1);
+        }
+    }
+
+    private static void record(Map<String, Histogram> durations,
+                               String key,
+                               long durationMillis) {
+        durations.computeIfAbsent(key,
+                                  name -> new Histogram(HIGHEST_TRACKABLE_MICROS,
+                                                        SIGNIFICANT_DIGITS))
+                .recordValue(Math.min(Math.max(TimeUnit.MILLISECONDS.toMicros(durationMillis), 0),
+                                      HIGHEST_TRACKABLE_MICROS));
+    }
+
+    private static Map<String, LatencySummary> summaries(Map<String, Histogram> durations) {
+        Map<String, LatencySummary> summaries = new TreeMap<>();
+        durations.forEach((key, histogram) -> summaries.put(key,
+                                                            LatencySummary.of(histogram)));
+        return summaries;
+    }
+
+    private static String text(JsonNode node,
+                               String... fields) {
+        return Arrays.stream(fields)
+                .map(node::path)
+                .filter(JsonNode::isTextual)
+                .map(JsonNode::asText)
+                .findFirst()
+                .orElse("");
+    }
+
+    private static void writeRow(BufferedWriter writer,
+                                 String... values) throws IOException {
+        writer.write(Arrays.stream(values)
+                             .map(TimingReport::csvValue)
+                             .collect(Collectors.joining(",")));
+        writer.newLine();
+    }
+
+    private static String csvValue(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
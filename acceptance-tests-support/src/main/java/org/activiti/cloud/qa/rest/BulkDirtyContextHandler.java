@@ -0,0 +1,196 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.rest;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.activiti.cloud.acc.shared.rest.DirtyContextHandler;
+import org.activiti.cloud.qa.tokens.TokenCache;
+
+/**
+ * Cleanup of the entities the load steps create in bulk, next to the shared {@link DirtyContextHandler}.
+ * <p>
+ * The shared step libraries mark their entities dirty on their own handler, which deletes them one at a time
+ * with the token of the current user, and the lifecycle steps keep cleaning those up through it. The load steps
+ * create thousands of entities from their own threads, with the token of each session, so they register the
+ * deletion of each entity here along with the access token of its owner.
+ * <p>
+ * Deletions are grouped by root entity, e.g. a process instance and the tasks created in it. Within a group they
+ * run one after the other from the most recent, and the groups are deleted concurrently by
+ * -Dacceptance.cleanup.parallelism workers. A failed deletion is retried -Dacceptance.cleanup.retries times
+ * with a growing backoff, and the cleanup gives up after -Dacceptance.cleanup.timeout seconds.
+ * <p>
+ * With -Dacceptance.cleanup.deferred=true the scenarios leave their bulk entities in place and everything
+ * is deleted at the end of the stories by {@link #cleanupDeferred()}.
+ */
+public class BulkDirtyContextHandler {
+
+    public static final String PARALLELISM_PROPERTY = "acceptance.cleanup.parallelism";
+
+    public static final String RETRIES_PROPERTY = "acceptance.cleanup.retries";
+
+    public static final String TIMEOUT_PROPERTY = "acceptance.cleanup.timeout";
+
+    public static final String DEFERRED_PROPERTY = "acceptance.cleanup.deferred";
+
+    private static final int DEFAULT_PARALLELISM = 8;
+
+    private static final int DEFAULT_RETRIES = 2;
+
+    private static final long DEFAULT_TIMEOUT_SECONDS = 300;
+
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+
+    private static final int MAX_REPORTED_FAILURES = 10;
+
+    private static final Map<String, Deque<Deletion>> deletionsByGroup = new LinkedHashMap<>();
+
+    /**
+     * Registers the deletion of an entity of the given group, to be run with the access token of its owner
+     */
+    public static synchronized void dirty(String group,
+                                          String ownerToken,
+                                          Consumer<String> deletion) {
+        deletionsByGroup.computeIfAbsent(group,
+                                         key -> new ConcurrentLinkedDeque<>())
+                .push(new Deletion(ownerToken,
+                                   deletion));
+    }
+
+    /**
+     * Drops the deletions of a group whose root entity is already gone, e.g. a completed process instance
+     */
+    public static synchronized void deleted(String group) {
+        deletionsByGroup.remove(group);
+    }
+
+    /**
+     * Deletes the bulk entities, unless the cleanup is deferred to the end of the stories
+     */
+    public static void cleanup() {
+        if (!isDeferred()) {
+            deleteDirtyEntities();
+        }
+    }
+
+    /**
+     * Deletes the bulk entities left by the scenarios when the cleanup is deferred
+     */
+    public static void cleanupDeferred() {
+        deleteDirtyEntities();
+    }
+
+    public static boolean isDeferred() {
+        return Boolean.getBoolean(DEFERRED_PROPERTY);
+    }
+
+    private static void deleteDirtyEntities() {
+        List<Deque<Deletion>> groups;
+        synchronized (BulkDirtyContextHandler.class) {
+            groups = new ArrayList<>(deletionsByGroup.values());
+            deletionsByGroup.clear();
+        }
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        List<String> failures = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(groups.size(),
+                                                                         Math.max(1,
+                                                                                  Integer.getInteger(PARALLELISM_PROPERTY,
+                                                                                                     DEFAULT_PARALLELISM))));
+        for (int i = groups.size() - 1; i >= 0; i--) {
+            Deque<Deletion> group = groups.get(i);
+            executor.execute(() -> group.forEach(deletion -> delete(deletion,
+                                                                    failures)));
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(Long.getLong(TIMEOUT_PROPERTY,
+                                                        DEFAULT_TIMEOUT_SECONDS),
+                                           TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+                failures.add("cleanup timed out after " + Long.getLong(TIMEOUT_PROPERTY,
+                                                                       DEFAULT_TIMEOUT_SECONDS) + " seconds");
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while cleaning up the bulk entities",
+                                            e);
+        }
+
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Unable to clean up " + failures.size() + " bulk deletions of "
+                                                    + groups.size() + " groups: "
+                                                    + failures.subList(0,
+                                                                       Math.min(failures.size(),
+                                                                                MAX_REPORTED_FAILURES)));
+        }
+    }
+
+    private static void delete(Deletion deletion,
+                               List<String> failures) {
+        int retries = Integer.getInteger(RETRIES_PROPERTY,
+                                         DEFAULT_RETRIES);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                deletion.run();
+                return;
+            } catch (RuntimeException failure) {
+                if (attempt >= retries) {
+                    failures.add(failure.toString());
+                    return;
+                }
+            }
+            try {
+                Thread.sleep(RETRY_BACKOFF_MILLIS * (attempt + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.add(e.toString());
+                return;
+            }
+        }
+    }
+
+    private static class Deletion {
+
+        private final String ownerToken;
+
+        private final Consumer<String> deletion;
+
+        private Deletion(String ownerToken,
+                         Consumer<String> deletion) {
+            this.ownerToken = ownerToken;
+            this.deletion = deletion;
+        }
+
+        private void run() {
+            deletion.accept(TokenCache.current(ownerToken));
+        }
+    }
+}
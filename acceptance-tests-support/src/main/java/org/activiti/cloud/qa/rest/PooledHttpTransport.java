@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.rest;
+
+import java.util.concurrent.TimeUnit;
+
+import feign.Client;
+import feign.httpclient.ApacheHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+/**
+ * Pooled HTTP transport for the Feign clients built in this repository, Feign's
+ * {@link ApacheHttpClient} over a shared pooled Apache HttpClient.
+ * <p>
+ * Connections are kept alive and reused across requests, and responses are
+ * negotiated with gzip compression unless -Dacceptance.http.compression=false. The pool
+ * is sized with -Dacceptance.http.max-connections and -Dacceptance.http.max-connections-per-route,
+ * which the reactive clients of the story modules follow as well.
+ * <p>
+ * The Spring configurations get it as a {@link Client} bean by importing
+ * {@link PooledHttpTransportConfiguration}, as the apps client does. The clients of the
+ * shared acceptance test libraries are built there with Feign builders that take no
+ * client from the Spring context, so they keep their own transport.
+ */
+public class PooledHttpTransport {
+
+    public static final String MAX_CONNECTIONS_PROPERTY = "acceptance.http.max-connections";
+
+    public static final String MAX_CONNECTIONS_PER_ROUTE_PROPERTY = "acceptance.http.max-connections-per-route";
+
+    public static final String COMPRESSION_PROPERTY = "acceptance.http.compression";
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 200;
+
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 50;
+
+    private static final long IDLE_CONNECTION_SECONDS = 30;
+
+    private static Client client;
+
+    /**
+     * The transport shared by the Feign clients of the story classes
+     */
+    public static synchronized Client client() {
+        if (client == null) {
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(IDLE_CONNECTION_SECONDS,
+                                                                                                          TimeUnit.SECONDS);
+            connectionManager.setMaxTotal(maxConnections());
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute());
+            HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
+                    .setConnectionManager(connectionManager)
+                    .evictIdleConnections(IDLE_CONNECTION_SECONDS,
+                                          TimeUnit.SECONDS)
+                    .disableCookieManagement()
+                    .useSystemProperties();
+            if (!isCompressed()) {
+                httpClientBuilder.disableContentCompression();
+            }
+            client = new ApacheHttpClient(httpClientBuilder.build());
+        }
+        return client;
+    }
+
+    public static int maxConnections() {
+        return Integer.getInteger(MAX_CONNECTIONS_PROPERTY,
+                                  DEFAULT_MAX_CONNECTIONS);
+    }
+
+    public static int maxConnectionsPerRoute() {
+        return Integer.getInteger(MAX_CONNECTIONS_PER_ROUTE_PROPERTY,
+                                  DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    }
+
+    public static boolean isCompressed() {
+        return !"false".equals(System.getProperty(COMPRESSION_PROPERTY));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.serenity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.activiti.cloud.acc.shared.serenity.ExtendedSerenityStories;
+import org.activiti.cloud.qa.polling.AdaptivePolling;
+import org.junit.runner.RunWith;
+
+/**
+ * Base class of the acceptance test runners of each module.
+ * <p>
+ * With -Dacceptance.story.threads greater than one the stories are split between
+ * workers running concurrently, see {@link ParallelStoriesRunner}. With -Dacceptance.shard.count
+ * greater than one only the stories of the shard of -Dacceptance.shard.index run, see
+ * {@link StorySharding}. Loading the class also installs the backoff poll interval of
+ * {@link AdaptivePolling} as Awaitility default.
+ * <p>
+ * The end of the stories actions on state shared by the workers, like stopping the token
+ * refresh, go through {@link #afterAllStories(Runnable)} to run once per run.
+ */
+@RunWith(ParallelStoriesRunner.class)
+public abstract class AcceptanceStories extends ExtendedSerenityStories {
+
+    private static List<String> assignedStoryPaths;
+
+    private static final List<Runnable> afterAllStoriesActions = new ArrayList<>();
+
+    static {
+        AdaptivePolling.installDefaults();
+    }
+
+    /**
+     * Restricts the stories of this class loader to the given paths, used by the story workers
+     */
+    static void assignStoryPaths(List<String> storyPaths) {
+        assignedStoryPaths = storyPaths;
+    }
+
+    static boolean isStoryWorker() {
+        return assignedStoryPaths != null;
+    }
+
+    /**
+     * Runs the action at the end of the stories of the run. Called at the end of the stories,
+     * it runs right away, unless the stories run on workers: the action then runs once, after
+     * all the workers completed.
+     */
+    public static void afterAllStories(Runnable action) {
+        if (!isStoryWorker()) {
+            action.run();
+            return;
+        }
+        synchronized (afterAllStoriesActions) {
+            afterAllStoriesActions.add(action);
+        }
+    }
+
+    /**
+     * Runs the actions the stories of this worker left for the end of the run, used once all the workers completed
+     *
+     * @return false if the stories of this worker left none
+     */
+    static boolean runAfterAllStories() {
+        List<Runnable> actions;
+        synchronized (afterAllStoriesActions) {
+            actions = new ArrayList<>(afterAllStoriesActions);
+            afterAllStoriesActions.clear();
+        }
+        actions.forEach(Runnable::run);
+        return !actions.isEmpty();
+    }
+
+    @Override
+    public List<String> storyPaths() {
+        List<String> storyPaths = super.storyPaths();
+        if (StorySharding.isEnabled()) {
+            storyPaths = StorySharding.currentShard(storyPaths);
+        }
+        if (assignedStoryPaths == null) {
+            return storyPaths;
+        }
+        return storyPaths.stream()
+                .filter(assignedStoryPaths::contains)
+                .collect(Collectors.toList());
+    }
+}
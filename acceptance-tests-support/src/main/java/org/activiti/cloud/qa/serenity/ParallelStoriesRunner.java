@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.serenity;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.activiti.cloud.acc.shared.serenity.ExtendedSerenityStories;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.RunWith;
+import org.junit.runner.Runner;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+/**
+ * Runs the stories of an {@link AcceptanceStories} class on -Dacceptance.story.threads workers.
+ * <p>
+ * The shared acceptance test library keeps the authentication token, the entities to clean up
+ * and the Serenity session in static state, and so do the story classes (the started process
+ * instance, the registered process definitions). Running stories on plain threads would mix
+ * them up, so each worker runs its share of the stories with JUnit in its own
+ * {@link StoryWorkerClassLoader}. Stories are assigned to workers in turn by path, and a story
+ * always runs entirely in one worker. Once all the workers completed, the actions of
+ * {@link AcceptanceStories#afterAllStories(Runnable)} run in one of them. With a single thread
+ * the stories run as before.
+ */
+public class ParallelStoriesRunner extends Runner {
+
+    public static final String THREADS_PROPERTY = "acceptance.story.threads";
+
+    private final Class<? extends AcceptanceStories> testClass;
+
+    private final Runner serialRunner;
+
+    private final Description description;
+
+    private final List<Description> workers = new ArrayList<>();
+
+    private final List<List<String>> workerStoryPaths = new ArrayList<>();
+
+    public ParallelStoriesRunner(Class<? extends AcceptanceStories> testClass) throws Exception {
+        this.testClass = testClass;
+        int threads = Integer.getInteger(THREADS_PROPERTY,
+                                         1);
+        if (threads <= 1 || AcceptanceStories.isStoryWorker()) {
+            serialRunner = serialRunner(testClass);
+            description = serialRunner.getDescription();
+        } else {
+            serialRunner = null;
+            description = Description.createSuiteDescription(testClass);
+            assignStories(testClass.newInstance().storyPaths(),
+                          threads);
+        }
+    }
+
+    @Override
+    public Description getDescription() {
+        return description;
+    }
+
+    @Override
+    public void run(RunNotifier notifier) {
+        if (serialRunner != null) {
+            serialRunner.run(notifier);
+            return;
+        }
+        List<StoryWorkerClassLoader> classLoaders = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < workers.size(); i++) {
+                Description worker = workers.get(i);
+                List<String> storyPaths = workerStoryPaths.get(i);
+                StoryWorkerClassLoader classLoader = new StoryWorkerClassLoader(testClass);
+                classLoaders.add(classLoader);
+                results.add(executor.submit(() -> runWorker(notifier,
+                                                            worker,
+                                                            classLoader,
+                                                            storyPaths)));
+            }
+            executor.shutdown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+            runAfterAllStories(classLoaders);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Story worker did not complete",
+                                            e.getCause());
+        } finally {
+            classLoaders.forEach(ParallelStoriesRunner::close);
+        }
+    }
+
+    private void assignStories(List<String> storyPaths,
+                               int threads) {
+        int workerCount = Math.max(1,
+                                   Math.min(threads,
+                                            storyPaths.size()));
+        for (int i = 0; i < workerCount; i++) {
+            workerStoryPaths.add(new ArrayList<>());
+        }
+        List<String> sortedStoryPaths = new ArrayList<>(storyPaths);
+        Collections.sort(sortedStoryPaths);
+        for (int i = 0; i < sortedStoryPaths.size(); i++) {
+            workerStoryPaths.get(i % workerCount).add(sortedStoryPaths.get(i));
+        }
+        for (int i = 0; i < workerCount; i++) {
+            Description worker = Description.createTestDescription(testClass,
+                                                                   "story worker " + (i + 1) + " of " + workerCount);
+            workers.add(worker);
+            description.addChild(worker);
+        }
+    }
+
+    private void runWorker(RunNotifier notifier,
+                           Description worker,
+                           StoryWorkerClassLoader classLoader,
+                           List<String> storyPaths) {
+        synchronized (notifier) {
+            notifier.fireTestStarted(worker);
+        }
+        try {
+            runStories(classLoader,
+                       storyPaths);
+        } catch (Throwable failure) {
+            synchronized (notifier) {
+                notifier.fireTestFailure(new Failure(worker,
+                                                     failure));
+            }
+        } finally {
+            synchronized (notifier) {
+                notifier.fireTestFinished(worker);
+            }
+        }
+    }
+
+    private void runStories(StoryWorkerClassLoader classLoader,
+                            List<String> storyPaths) throws Throwable {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try {
+            thread.setContextClassLoader(classLoader);
+
+            Method assignStoryPaths = classLoader.loadClass(AcceptanceStories.class.getName())
+                    .getDeclaredMethod("assignStoryPaths",
+                                       List.class);
+            assignStoryPaths.setAccessible(true);
+            assignStoryPaths.invoke(null,
+                                    storyPaths);
+
+            Class<?> workerTestClass = classLoader.loadClass(testClass.getName());
+            Object result = classLoader.loadClass(JUnitCore.class.getName())
+                    .getMethod("runClasses",
+                               Class[].class)
+                    .invoke(null,
+                            (Object) new Class<?>[]{workerTestClass});
+            if (!(Boolean) result.getClass().getMethod("wasSuccessful").invoke(result)) {
+                throw new AssertionError("Stories " + storyPaths + " failed: "
+                                                 + result.getClass().getMethod("getFailures").invoke(result));
+            }
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    /**
+     * Runs the actions left for the end of the run by the first worker that left some, in that worker:
+     * every worker runs the same step classes, so they all leave the same actions
+     */
+    private static void runAfterAllStories(List<StoryWorkerClassLoader> classLoaders) {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try {
+            for (StoryWorkerClassLoader classLoader : classLoaders) {
+                thread.setContextClassLoader(classLoader);
+                Method runAfterAllStories = classLoader.loadClass(AcceptanceStories.class.getName())
+                        .getDeclaredMethod("runAfterAllStories");
+                runAfterAllStories.setAccessible(true);
+                if ((Boolean) runAfterAllStories.invoke(null)) {
+                    return;
+                }
+            }
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("The actions at the end of the stories failed",
+                                            e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to run the actions at the end of the stories",
+                                            e);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private static void close(StoryWorkerClassLoader classLoader) {
+        try {
+            classLoader.close();
+        } catch (IOException e) {
+            // the classpath of the worker is only read, nothing is lost
+        }
+    }
+
+    /**
+     * The runner ExtendedSerenityStories would have been run with, had this runner not been declared
+     */
+    private static Runner serialRunner(Class<? extends AcceptanceStories> testClass) throws Exception {
+        RunWith runWith = ExtendedSerenityStories.class.getAnnotation(RunWith.class);
+        if (runWith == null) {
+            return new BlockJUnit4ClassRunner(testClass);
+        }
+        return runWith.value()
+                .getConstructor(Class.class)
+                .newInstance(testClass);
+    }
+}
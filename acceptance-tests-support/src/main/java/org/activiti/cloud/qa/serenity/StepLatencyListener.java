@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.serenity;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import net.thucydides.core.steps.ExecutedStepDescription;
+import net.thucydides.core.steps.StepEventBus;
+import net.thucydides.core.steps.StepListener;
+import org.activiti.cloud.qa.metrics.StepMetrics;
+
+/**
+ * Times the steps of the step libraries, the methods annotated with @Step, into {@link StepMetrics}.
+ * <p>
+ * The listener follows the step events of the Serenity event bus of the story thread.
+ * Steps without a step library, like the JBehave steps of the stories, are not timed, and
+ * neither are the requests of other threads: the load, fan-out and soak steps send theirs
+ * from pool threads, and time them in their own load results instead.
+ * It only reacts to the step events, so it is a proxy of {@link StepListener} rather than an
+ * implementation of every event of the interface.
+ */
+public class StepLatencyListener implements InvocationHandler {
+
+    private static final Set<StepEventBus> instrumentedEventBuses = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * Started steps of the thread, including the ones that are not timed, each popped once by the
+     * event ending it; lastStepFailed reports a failure after the last step ended, so it pops none
+     */
+    private final Deque<StartedStep> startedSteps = new ArrayDeque<>();
+
+    private final StepListener listener;
+
+    private StepLatencyListener() {
+        listener = (StepListener) Proxy.newProxyInstance(StepListener.class.getClassLoader(),
+                                                         new Class<?>[]{StepListener.class},
+                                                         this);
+    }
+
+    /**
+     * Registers a listener on the event bus of the current thread, unless already done
+     */
+    public static void instrumentCurrentThread() {
+        StepEventBus eventBus = StepEventBus.getEventBus();
+        if (instrumentedEventBuses.add(eventBus)) {
+            eventBus.registerListener(new StepLatencyListener().listener);
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy,
+                         Method method,
+                         Object[] args) {
+        switch (method.getName()) {
+            case "stepStarted":
+                startedSteps.push(startedStep((ExecutedStepDescription) args[0]));
+                return null;
+            case "skippedStepStarted":
+                startedSteps.push(StartedStep.NOT_TIMED);
+                return null;
+            case "stepFinished":
+            case "stepIgnored":
+            case "stepPending":
+                stepDone(false);
+                return null;
+            case "stepFailed":
+                stepDone(true);
+                return null;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return StepLatencyListener.class.getSimpleName();
+            default:
+                return null;
+        }
+    }
+
+    private void stepDone(boolean failed) {
+        StartedStep startedStep = startedSteps.poll();
+        if (startedStep != null && startedStep != StartedStep.NOT_TIMED) {
+            StepMetrics.record(startedStep.name,
+                               System.nanoTime() - startedStep.startNanos,
+                               failed);
+        }
+    }
+
+    private static StartedStep startedStep(ExecutedStepDescription description) {
+        if (description.getStepClass() == null) {
+            return StartedStep.NOT_TIMED;
+        }
+        return new StartedStep(stepLibraryName(description.getStepClass()) + "." + description.getName().split(":")[0].trim(),
+                               System.nanoTime());
+    }
+
+    /**
+     * Name of the step library, without the suffix of the Serenity proxy class
+     */
+    private static String stepLibraryName(Class<?> stepClass) {
+        String name = stepClass.getSimpleName();
+        int proxySuffix = name.indexOf("$$");
+        return proxySuffix < 0 ? name : name.substring(0,
+                                                       proxySuffix);
+    }
+
+    private static class StartedStep {
+
+        private static final StartedStep NOT_TIMED = new StartedStep(null,
+                                                                     0);
+
+        private final String name;
+
+        private final long startNanos;
+
+        private StartedStep(String name,
+                            long startNanos) {
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+    }
+}
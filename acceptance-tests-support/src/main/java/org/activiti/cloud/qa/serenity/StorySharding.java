@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.serenity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Selects the stories of one of -Dacceptance.shard.count shards, the one of -Dacceptance.shard.index (from 0).
+ * <p>
+ * The stories are balanced between the shards by their duration in a previous run, read from
+ * the stories of the build summary of -Dacceptance.shard.durations (the performance baseline
+ * of the module by default): the longest story goes to the least loaded shard first. The duration
+ * of a story missing from the summary, or of every story without summary, is estimated from its
+ * number of scenarios, at the mean scenario duration of the known stories. Every shard computes
+ * the same split from the same story paths and durations, so the shards of a build run every
+ * story exactly once.
+ */
+public class StorySharding {
+
+    public static final String SHARD_INDEX_PROPERTY = "acceptance.shard.index";
+
+    public static final String SHARD_COUNT_PROPERTY = "acceptance.shard.count";
+
+    public static final String DURATIONS_PROPERTY = "acceptance.shard.durations";
+
+    private static final String DEFAULT_DURATIONS_FILE_NAME = "performance-baseline.json";
+
+    private static final String SCENARIO_KEYWORD = "Scenario:";
+
+    private final int shardCount;
+
+    private final Map<String, Double> storyDurations;
+
+    private final ToIntFunction<String> scenarioCount;
+
+    public StorySharding(int shardCount,
+                         Map<String, Double> storyDurations,
+                         ToIntFunction<String> scenarioCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Sharding needs at least one shard");
+        }
+        this.shardCount = shardCount;
+        this.storyDurations = storyDurations;
+        this.scenarioCount = scenarioCount;
+    }
+
+    public static boolean isEnabled() {
+        return Integer.getInteger(SHARD_COUNT_PROPERTY,
+                                  1) > 1;
+    }
+
+    /**
+     * The story paths of the shard of this run
+     */
+    public static List<String> currentShard(List<String> storyPaths) {
+        int shardCount = Integer.getInteger(SHARD_COUNT_PROPERTY,
+                                            1);
+        int shardIndex = Integer.getInteger(SHARD_INDEX_PROPERTY,
+                                            0);
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Shard index " + shardIndex + " out of " + shardCount + " shards");
+        }
+        return new StorySharding(shardCount,
+                                 storyDurations(durationsFile()),
+                                 StorySharding::scenarioCount)
+                .shards(storyPaths)
+                .get(shardIndex);
+    }
+
+    public List<List<String>> shards(List<String> storyPaths) {
+        Map<String, Integer> scenarios = new HashMap<>();
+        storyPaths.forEach(storyPath -> scenarios.put(storyPath,
+                                                      Math.max(scenarioCount.applyAsInt(storyPath),
+                                                               1)));
+        double knownDuration = 0;
+        int knownScenarios = 0;
+        for (String storyPath : storyPaths) {
+            Double duration = storyDurations.get(storyKey(storyPath));
+            if (duration != null) {
+                knownDuration += duration;
+                knownScenarios += scenarios.get(storyPath);
+            }
+        }
+        double scenarioDuration = knownScenarios == 0 ? 1 : knownDuration / knownScenarios;
+        Map<String, Double> durations = new HashMap<>();
+        storyPaths.forEach(storyPath -> durations.put(storyPath,
+                                                      storyDurations.getOrDefault(storyKey(storyPath),
+                                                                                  scenarios.get(storyPath) * scenarioDuration)));
+
+        List<String> longestFirst = new ArrayList<>(storyPaths);
+        longestFirst.sort(Comparator.comparing((String storyPath) -> durations.get(storyPath))
+                                  .reversed()
+                                  .thenComparing(Comparator.naturalOrder()));
+
+        List<List<String>> shards = new ArrayList<>();
+        double[] shardDurations = new double[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (String storyPath : longestFirst) {
+            int leastLoaded = 0;
+            for (int i = 1; i < shardCount; i++) {
+                if (shardDurations[i] < shardDurations[leastLoaded]) {
+                    leastLoaded = i;
+                }
+            }
+            shards.get(leastLoaded).add(storyPath);
+            shardDurations[leastLoaded] += durations.get(storyPath);
+        }
+        shards.forEach(Collections::sort);
+        return shards;
+    }
+
+    /**
+     * Key matching a story path with the story name of its Serenity outcomes,
+     * e.g. "task variable actions" for stories/runtime-bundle/task-variable-actions.story
+     */
+    static String storyKey(String storyPathOrName) {
+        String name = Paths.get(storyPathOrName).getFileName().toString();
+        if (name.endsWith(".story")) {
+            name = name.substring(0,
+                                  name.length() - ".story".length());
+        }
+        return name.toLowerCase()
+                .replaceAll("[^a-z0-9]+", " ")
+                .trim();
+    }
+
+    /**
+     * Total scenario duration of each story of a build summary, by story key
+     */
+    static Map<String, Double> storyDurations(Path durationsFile) {
+        Map<String, Double> durations = new HashMap<>();
+        if (durationsFile == null || !Files.exists(durationsFile)) {
+            return durations;
+        }
+        try {
+            JsonNode stories = new ObjectMapper().readTree(durationsFile.toFile()).path("stories");
+            for (Iterator<Map.Entry<String, JsonNode>> entries = stories.fields(); entries.hasNext(); ) {
+                Map.Entry<String, JsonNode> story = entries.next();
+                durations.merge(storyKey(story.getKey()),
+                                story.getValue().path("mean").asDouble() * story.getValue().path("count").asDouble(),
+                                Double::sum);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the story durations of " + durationsFile,
+                                           e);
+        }
+        return durations;
+    }
+
+    /**
+     * Number of scenarios of a story of the classpath, 0 when it cannot be read
+     */
+    static int scenarioCount(String storyPath) {
+        InputStream story = Thread.currentThread().getContextClassLoader().getResourceAsStream(storyPath);
+        if (story == null) {
+            return 0;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(story,
+                                                                              StandardCharsets.UTF_8))) {
+            return (int) reader.lines()
+                    .filter(line -> line.trim().startsWith(SCENARIO_KEYWORD))
+                    .count();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static Path durationsFile() {
+        String durationsFile = System.getProperty(DURATIONS_PROPERTY);
+        if (durationsFile != null && !durationsFile.isEmpty()) {
+            return Paths.get(durationsFile);
+        }
+        return Paths.get(System.getProperty("basedir", "."),
+                         DEFAULT_DURATIONS_FILE_NAME);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.serenity;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class loader of a story worker.
+ * <p>
+ * Loads its own copy of the test classpath, so the static state of the shared
+ * acceptance test library (the authentication token of TokenHolder, the entities
+ * registered for cleanup, the Serenity session) and of the story classes belongs
+ * to a single worker. The metrics and token cache classes are the exception: they
+ * are taken from the class loader of the run, so every worker records into the same
+ * histograms and reuses the tokens of the others.
+ */
+class StoryWorkerClassLoader extends URLClassLoader {
+
+    private static final List<String> SHARED_PACKAGES = Arrays.asList("org.HdrHistogram.",
+                                                                      "org.activiti.cloud.qa.metrics.",
+                                                                      "org.activiti.cloud.qa.tokens.");
+
+    private static final String SUREFIRE_CLASSPATH_PROPERTY = "surefire.test.class.path";
+
+    private final ClassLoader runClassLoader;
+
+    StoryWorkerClassLoader(Class<?> testClass) {
+        super(classpathOf(testClass),
+              ClassLoader.getSystemClassLoader().getParent());
+        this.runClassLoader = testClass.getClassLoader();
+    }
+
+    @Override
+    protected Class<?> loadClass(String name,
+                                 boolean resolve) throws ClassNotFoundException {
+        if (SHARED_PACKAGES.stream().anyMatch(name::startsWith)) {
+            return runClassLoader.loadClass(name);
+        }
+        return super.loadClass(name,
+                               resolve);
+    }
+
+    /**
+     * The classpath of the class loader of the test class: its URLs when it is a URLClassLoader,
+     * as the one of failsafe without fork, else the test classpath surefire passes to forked JVMs,
+     * else the class path of the JVM. Fails when the test class is not on it.
+     */
+    private static URL[] classpathOf(Class<?> testClass) {
+        ClassLoader classLoader = testClass.getClassLoader();
+        URL[] classpath;
+        if (classLoader instanceof URLClassLoader) {
+            classpath = ((URLClassLoader) classLoader).getURLs();
+        } else {
+            classpath = Arrays.stream(System.getProperty(SUREFIRE_CLASSPATH_PROPERTY,
+                                                         System.getProperty("java.class.path"))
+                                              .split(File.pathSeparator))
+                    .filter(path -> !path.isEmpty())
+                    .map(StoryWorkerClassLoader::toURL)
+                    .toArray(URL[]::new);
+        }
+        URL testClassLocation = testClass.getProtectionDomain().getCodeSource().getLocation();
+        if (Arrays.stream(classpath).noneMatch(url -> sameLocation(url,
+                                                                   testClassLocation))) {
+            throw new IllegalStateException("Unable to find the classpath of " + testClass.getName()
+                                                    + " for the story workers, run with -D" + ParallelStoriesRunner.THREADS_PROPERTY + "=1");
+        }
+        return classpath;
+    }
+
+    private static boolean sameLocation(URL url,
+                                        URL location) {
+        try {
+            return Paths.get(url.toURI()).equals(Paths.get(location.toURI()));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return url.toExternalForm().equals(location.toExternalForm());
+        }
+    }
+
+    private static URL toURL(String path) {
+        try {
+            return new File(path).toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid classpath entry " + path,
+                                               e);
+        }
+    }
+}
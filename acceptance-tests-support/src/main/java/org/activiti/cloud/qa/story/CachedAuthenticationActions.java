@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.story;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.thucydides.core.annotations.Steps;
+import org.activiti.cloud.acc.shared.model.AuthToken;
+import org.activiti.cloud.acc.shared.rest.TokenHolder;
+import org.activiti.cloud.acc.shared.steps.AuthenticationSteps;
+import org.activiti.cloud.qa.serenity.AcceptanceStories;
+import org.activiti.cloud.qa.tokens.TokenCache;
+import org.jbehave.core.annotations.AfterStories;
+import org.jbehave.core.annotations.Given;
+
+/**
+ * Authentication through the {@link TokenCache}, taking precedence over the shared authentication step.
+ * <p>
+ * The cache is looked up with the configured realm and the username, so the first authentication
+ * of every user goes through {@link AuthenticationSteps} and fills the cache for all the story workers.
+ * Disable with -Dacceptance.token.cache=false.
+ * <p>
+ * Actions registered with {@link #onAuthenticated(String, Consumer)} run with the access token of every
+ * authentication, for the steps that need the user of the scenario before its first command.
+ */
+public class CachedAuthenticationActions {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+                       false);
+
+    private static final Map<String, Consumer<String>> authenticationListeners = new ConcurrentHashMap<>();
+
+    @Steps
+    private AuthenticationSteps authenticationSteps;
+
+    /**
+     * Registers an action to run with the access token of the user once authenticated, replacing the one of the same name
+     */
+    public static void onAuthenticated(String name,
+                                       Consumer<String> listener) {
+        authenticationListeners.put(name,
+                                    listener);
+    }
+
+    @Given(value = "the user is authenticated as $username", priority = 1)
+    public void authenticateUser(String username) throws IOException {
+        authenticate(username);
+        String accessToken = TokenHolder.getAuthToken().getAccess_token();
+        authenticationListeners.values().forEach(listener -> listener.accept(accessToken));
+    }
+
+    private void authenticate(String username) throws IOException {
+        if (!TokenCache.isEnabled()) {
+            authenticationSteps.authenticateUser(username);
+            return;
+        }
+        Optional<String> cachedToken = TokenCache.get(username);
+        if (cachedToken.isPresent()) {
+            TokenHolder.setAuthToken(objectMapper.readValue(cachedToken.get(),
+                                                            AuthToken.class));
+            return;
+        }
+        authenticationSteps.authenticateUser(username);
+        TokenCache.put(username,
+                       objectMapper.writeValueAsString(TokenHolder.getAuthToken()));
+    }
+
+    @AfterStories
+    public void stopRefreshingTokens() {
+        AcceptanceStories.afterAllStories(TokenCache::stopRefreshing);
+    }
+}
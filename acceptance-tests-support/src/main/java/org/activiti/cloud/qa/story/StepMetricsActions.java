@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.story;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.activiti.cloud.qa.metrics.StepMetrics;
+import org.activiti.cloud.qa.serenity.AcceptanceStories;
+import org.activiti.cloud.qa.serenity.StepLatencyListener;
+import org.jbehave.core.annotations.AfterStories;
+import org.jbehave.core.annotations.BeforeScenario;
+
+/**
+ * Times the steps of the step libraries and writes their summary as step-metrics.json
+ * next to the Serenity report, see {@link StepMetrics}.
+ */
+public class StepMetricsActions {
+
+    public static final String SUMMARY_FILE_NAME = "step-metrics.json";
+
+    @BeforeScenario
+    public void instrumentSteps() {
+        StepLatencyListener.instrumentCurrentThread();
+    }
+
+    @AfterStories
+    public void writeStepMetrics() {
+        AcceptanceStories.afterAllStories(() -> StepMetrics.writeSummary(serenityOutputDirectory().resolve(SUMMARY_FILE_NAME)));
+    }
+
+    public static Path serenityOutputDirectory() {
+        String outputDirectory = System.getProperty("serenity.outputDirectory");
+        if (outputDirectory != null) {
+            return Paths.get(outputDirectory);
+        }
+        return Paths.get(System.getProperty("basedir", "."),
+                         "target",
+                         "site",
+                         "serenity");
+    }
+}
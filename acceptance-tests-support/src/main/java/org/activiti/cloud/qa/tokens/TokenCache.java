@@ -0,0 +1,260 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.tokens;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * OAuth tokens of the authenticated users, shared by all the story workers of a run.
+ * <p>
+ * Tokens are kept as the JSON of the token endpoint response, keyed by the configured realm
+ * and the username, and refreshed in the background with their refresh token shortly before
+ * the access token expires, until {@link #stopRefreshing()} once all the story workers completed.
+ * A token that cannot be refreshed is dropped, so the next authentication goes to the
+ * token endpoint again.
+ */
+public class TokenCache {
+
+    public static final String ENABLED_PROPERTY = "acceptance.token.cache";
+
+    private static final long REFRESH_MARGIN_SECONDS = 30;
+
+    private static final long MIN_VALIDITY_SECONDS = 10;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final Map<String, String> tokens = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable,
+                                   "token-cache-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile String realm;
+
+    public static boolean isEnabled() {
+        return !"false".equals(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    /**
+     * The cached token response of the user, if it is valid for a little while yet
+     */
+    public static Optional<String> get(String username) {
+        return Optional.ofNullable(tokens.get(key(username)))
+                .filter(token -> secondsToExpiry(accessToken(token)) > MIN_VALIDITY_SECONDS);
+    }
+
+    public static void put(String username,
+                           String token) {
+        String key = key(username);
+        tokens.put(key,
+                   token);
+        scheduleRefresh(key,
+                        token);
+    }
+
+    /**
+     * The given access token, or the cached access token of the same user once the given one
+     * is about to expire, for the requests sent long after the authentication of their user
+     */
+    public static String current(String accessToken) {
+        if (secondsToExpiry(accessToken) > MIN_VALIDITY_SECONDS) {
+            return accessToken;
+        }
+        return get(username(accessToken))
+                .map(TokenCache::accessToken)
+                .orElse(accessToken);
+    }
+
+    /**
+     * Stops the background refresh, the cached tokens stay until they expire
+     */
+    public static void stopRefreshing() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * The user name of an access token, or its subject when it has none
+     */
+    public static String username(String accessToken) {
+        JsonNode claims = claims(accessToken);
+        return claims.path("preferred_username").asText(claims.path("sub").asText());
+    }
+
+    /**
+     * The realm the users authenticate against, -Drealm or the realm of the
+     * config-${profile}.properties of the module
+     */
+    static String realm() {
+        if (realm == null) {
+            Properties config = new Properties();
+            try (InputStream in = TokenCache.class.getClassLoader()
+                    .getResourceAsStream("config-" + System.getProperty("profile", "env") + ".properties")) {
+                if (in != null) {
+                    config.load(in);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read the configured realm",
+                                               e);
+            }
+            realm = System.getProperty("realm",
+                                       config.getProperty("realm", ""));
+        }
+        return realm;
+    }
+
+    private static void scheduleRefresh(String key,
+                                        String token) {
+        try {
+            refresher.schedule(() -> refresh(key,
+                                             token),
+                               Math.max(0,
+                                        secondsToExpiry(accessToken(token)) - REFRESH_MARGIN_SECONDS),
+                               TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // refresh stopped at the end of the stories, the token is used until it expires
+        }
+    }
+
+    private static void refresh(String key,
+                                String token) {
+        if (!token.equals(tokens.get(key))) {
+            return;
+        }
+        try {
+            String refreshToken = objectMapper.readTree(token).path("refresh_token").asText(null);
+            if (refreshToken == null) {
+                tokens.remove(key,
+                              token);
+                return;
+            }
+            JsonNode claims = claims(accessToken(token));
+            Map<String, String> form = new LinkedHashMap<>();
+            form.put("grant_type", "refresh_token");
+            form.put("refresh_token", refreshToken);
+            form.put("client_id", claims.path("azp").asText());
+            String refreshed = post(claims.path("iss").asText() + "/protocol/openid-connect/token",
+                                    form);
+            if (tokens.replace(key,
+                               token,
+                               refreshed)) {
+                scheduleRefresh(key,
+                                refreshed);
+            }
+        } catch (IOException | RuntimeException e) {
+            tokens.remove(key,
+                          token);
+        }
+    }
+
+    private static String post(String url,
+                               Map<String, String> form) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type",
+                                      "application/x-www-form-urlencoded");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(urlEncoded(form).getBytes(StandardCharsets.UTF_8));
+        }
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            throw new IOException("Token refresh failed with status " + connection.getResponseCode());
+        }
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+            return new String(body.toByteArray(),
+                              StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String urlEncoded(Map<String, String> form) {
+        return form.entrySet()
+                .stream()
+                .map(entry -> entry.getKey() + "=" + urlEncode(entry.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    private static String urlEncode(String value) {
+        try {
+            return URLEncoder.encode(value,
+                                     StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long secondsToExpiry(String accessToken) {
+        long expiresAt = claims(accessToken).path("exp").asLong(0);
+        return expiresAt - System.currentTimeMillis() / 1000;
+    }
+
+    private static String accessToken(String token) {
+        try {
+            return objectMapper.readTree(token).path("access_token").asText();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid token response",
+                                           e);
+        }
+    }
+
+    private static JsonNode claims(String accessToken) {
+        String[] parts = accessToken.split("\\.");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("The access token is not a JWT");
+        }
+        try {
+            return objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid access token claims",
+                                           e);
+        }
+    }
+
+    private static String key(String username) {
+        return realm() + "|" + username;
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.activiti.cloud.qa.rest;
 
+import feign.Client;
 import feign.gson.GsonEncoder;
 import org.activiti.cloud.acc.shared.rest.feign.FeignConfiguration;
 import org.activiti.cloud.acc.shared.rest.feign.FeignRestDataClient;
@@ -30,7 +31,7 @@ import org.springframework.context.annotation.Import;
 /**
  * Feign Configuration
  */
-@Import(FeignConfiguration.class)
+@Import({FeignConfiguration.class, PooledHttpTransportConfiguration.class})
 @Configuration
 public class AppsFeignConfiguration {
 
@@ -39,10 +40,11 @@ public class AppsFeignConfiguration {
 
 
     @Bean
-    AppsService appsService(){
+    AppsService appsService(Client client){
         return FeignRestDataClient
                 .builder(new GsonEncoder(),
                          new HalDecoder())
+                .client(client)
                 .target(AppsService.class,
                         appsTestsConfigurationProperties.getAppsUrl());
     }
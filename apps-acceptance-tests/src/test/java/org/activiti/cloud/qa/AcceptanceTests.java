@@ -17,8 +17,8 @@
 package org.activiti.cloud.qa;
 
 
-import org.activiti.cloud.acc.shared.serenity.ExtendedSerenityStories;
+import org.activiti.cloud.qa.serenity.AcceptanceStories;
 
-public class AcceptanceTests extends ExtendedSerenityStories {
+public class AcceptanceTests extends AcceptanceStories {
 
 }
@@ -16,9 +16,9 @@
 
 package org.activiti.cloud.qa;
 
-import org.activiti.cloud.acc.shared.serenity.ExtendedSerenityStories;
+import org.activiti.cloud.qa.serenity.AcceptanceStories;
 
-public class ModelingAcceptanceTests extends ExtendedSerenityStories {
+public class ModelingAcceptanceTests extends AcceptanceStories {
 
     //TODO: We need this for now to pick up classes from the classpath
     //TODO: It won't be necessary once the ProcessInstanceTasks,RuntimeLifeCycleActions and Task classes are part of core (operations and assertions)
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+
+/**
+ * A signal thrown at many parked signal catch process instances, spread over one or more runtime bundles.
+ * <p>
+ * The completion time of each catcher, from the audit timestamp of the throw to the one of
+ * its PROCESS_COMPLETED event, is recorded in the histogram
+ * signals.storm.&lt;catchers&gt;-catchers.&lt;runtimes&gt;-runtimes, so runs with different
+ * sizes can be compared. The timeout is checked on the same audit timestamps: a catcher only
+ * counts as completed when it completed within the timeout after the throw. The catchers are
+ * polled only to find out when all of them completed, for as long as the timeout.
+ */
+public class SignalStorm {
+
+    public static final String HISTOGRAM_PREFIX = "signals.storm.";
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final int catchers;
+
+    private final int runtimes;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public SignalStorm(int catchers,
+                       int runtimes) {
+        this.catchers = catchers;
+        this.runtimes = runtimes;
+    }
+
+    public void parked(String processInstanceId) {
+        pending.add(processInstanceId);
+    }
+
+    public int getParked() {
+        return pending.size();
+    }
+
+    /**
+     * Polls the completion timestamps of the pending catchers until all of them are completed or the timeout expires
+     */
+    public SignalStormResult awaitCompletion(long thrownAtMillis,
+                                             Function<String, Optional<Long>> completedAtMillis,
+                                             Duration timeout) {
+        String histogramName = histogramName();
+        int parked = pending.size();
+        int completedInTime = 0;
+        long pollDeadline = System.nanoTime() + timeout.toNanos();
+        long lastCompletionMillis = thrownAtMillis;
+        while (!pending.isEmpty() && System.nanoTime() < pollDeadline) {
+            for (String processInstanceId : new ArrayList<>(pending)) {
+                Optional<Long> completedAt = completedAtMillis.apply(processInstanceId);
+                if (completedAt.isPresent()) {
+                    long completionMillis = completedAt.get() - thrownAtMillis;
+                    LatencyHistograms.recordMillis(histogramName,
+                                                   completionMillis);
+                    if (completionMillis <= timeout.toMillis()) {
+                        completedInTime++;
+                        lastCompletionMillis = Math.max(lastCompletionMillis,
+                                                        completedAt.get());
+                    }
+                    pending.remove(processInstanceId);
+                }
+            }
+            if (!pending.isEmpty()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(POLL_INTERVAL_MILLIS));
+            }
+        }
+        return new SignalStormResult(catchers,
+                                     runtimes,
+                                     parked,
+                                     completedInTime,
+                                     completedInTime == parked ? lastCompletionMillis - thrownAtMillis : -1,
+                                     LatencyHistograms.summary(histogramName));
+    }
+
+    public String histogramName() {
+        return HISTOGRAM_PREFIX + catchers + "-catchers." + runtimes + "-runtimes";
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import org.activiti.cloud.qa.metrics.LatencySummary;
+
+/**
+ * Outcome of a {@link SignalStorm}
+ */
+public class SignalStormResult {
+
+    private final int catchers;
+
+    private final int runtimes;
+
+    private final int parked;
+
+    private final int completed;
+
+    private final long allCompletedMillis;
+
+    private final LatencySummary completion;
+
+    public SignalStormResult(int catchers,
+                             int runtimes,
+                             int parked,
+                             int completed,
+                             long allCompletedMillis,
+                             LatencySummary completion) {
+        this.catchers = catchers;
+        this.runtimes = runtimes;
+        this.parked = parked;
+        this.completed = completed;
+        this.allCompletedMillis = allCompletedMillis;
+        this.completion = completion;
+    }
+
+    public int getCatchers() {
+        return catchers;
+    }
+
+    public int getRuntimes() {
+        return runtimes;
+    }
+
+    public int getParked() {
+        return parked;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Time from the throw until the last catcher completed, -1 when some never did
+     */
+    public long getAllCompletedMillis() {
+        return allCompletedMillis;
+    }
+
+    public LatencySummary getCompletion() {
+        return completion;
+    }
+}
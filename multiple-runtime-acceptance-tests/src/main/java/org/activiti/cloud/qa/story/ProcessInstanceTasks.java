@@ -16,16 +16,38 @@
 
 package org.activiti.cloud.qa.story;
 
+import static org.activiti.cloud.qa.polling.AdaptivePolling.AUDIT;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.await;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import net.thucydides.core.annotations.Steps;
 import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.cloud.acc.core.rest.feign.EnableRuntimeFeignContext;
+import org.activiti.cloud.acc.core.steps.audit.AuditSteps;
 import org.activiti.cloud.acc.core.steps.query.ProcessQuerySteps;
+import org.activiti.cloud.acc.shared.steps.AuthenticationSteps;
+import org.activiti.cloud.api.model.shared.events.CloudRuntimeEvent;
 import org.activiti.cloud.api.process.model.CloudProcessInstance;
+import org.activiti.cloud.qa.helpers.FixedRateLoad;
+import org.activiti.cloud.qa.helpers.LoadResult;
+import org.activiti.cloud.qa.helpers.LoadSessions;
+import org.activiti.cloud.qa.helpers.PerformanceReport;
+import org.activiti.cloud.qa.helpers.ReactiveRuntimeClient;
+import org.activiti.cloud.qa.helpers.SignalStorm;
+import org.activiti.cloud.qa.helpers.SignalStormResult;
 import org.activiti.cloud.qa.steps.MultipleRuntimeBundleSteps;
 import org.jbehave.core.annotations.Then;
 import org.jbehave.core.annotations.When;
+import org.springframework.beans.factory.annotation.Value;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+@EnableRuntimeFeignContext
 public class ProcessInstanceTasks {
 
     @Steps
@@ -34,9 +56,23 @@ public class ProcessInstanceTasks {
     @Steps
     private ProcessQuerySteps processQuerySteps;
 
+    @Steps
+    private AuditSteps auditSteps;
+
+    @Steps
+    private AuthenticationSteps authenticationSteps;
+
+    @Value("${runtime.bundle.url}")
+    private String runtimeBundleUrl;
+
+    @Value("${runtime.bundle.another.url}")
+    private String runtimeBundleAnotherUrl;
+
     private CloudProcessInstance processInstanceCatchSignal;
     private CloudProcessInstance processInstanceThrowSignal;
 
+    private SignalStorm signalStorm;
+
     @When("the user starts signal catch process on primary runtime and starts signal throw process on secondary runtime")
     public void startSignalCatchThrowProcessInstance() {
     	processInstanceCatchSignal = runtimeBundleSteps.startProcess("SignalCatchEventProcess", true);
@@ -52,4 +88,70 @@ public class ProcessInstanceTasks {
         processQuerySteps.checkProcessInstanceStatus(processInstanceThrowSignal.getId(),
                 ProcessInstance.ProcessInstanceStatus.COMPLETED);
     }
+
+    @When("$users users park $catchers signal catch processes on $runtimes runtimes at $rate per second")
+    public void parkSignalCatchProcessInstances(int users,
+                                                int catchers,
+                                                int runtimes,
+                                                double rate) throws InterruptedException {
+        assertThat(runtimes).as("runtimes").isBetween(1,
+                                                      2);
+        signalStorm = new SignalStorm(catchers,
+                                      runtimes);
+        ReactiveRuntimeClient primaryClient = ReactiveRuntimeClient.of(runtimeBundleUrl);
+        ReactiveRuntimeClient anotherClient = ReactiveRuntimeClient.of(runtimeBundleAnotherUrl);
+        AtomicInteger nextCatcher = new AtomicInteger();
+
+        LoadResult loadResult = new FixedRateLoad(LoadSessions.authenticate(authenticationSteps,
+                                                                            users),
+                                                  catchers,
+                                                  rate)
+                .run("signals.park." + runtimes + "-runtimes",
+                     token -> {
+                         boolean isPrimaryService = nextCatcher.getAndIncrement() % runtimes == 0;
+                         ReactiveRuntimeClient client = isPrimaryService ? primaryClient : anotherClient;
+                         CloudProcessInstance catcher = client.startProcess(token,
+                                                                            ProcessPayloadBuilder
+                                                                                    .start()
+                                                                                    .withProcessDefinitionKey("SignalCatchEventProcess")
+                                                                                    .build())
+                                 .block();
+                         assertThat(catcher).isNotNull();
+                         client.markDirty(token,
+                                          catcher.getId());
+                         signalStorm.parked(catcher.getId());
+                     });
+        PerformanceReport.attach("Parked signal catchers",
+                                 loadResult);
+        assertThat(signalStorm.getParked()).isEqualTo(catchers);
+    }
+
+    @When("the user throws the signal on secondary runtime")
+    public void throwSignalOnSecondaryRuntime() {
+        processInstanceThrowSignal = runtimeBundleSteps.startProcess("SignalThrowEventProcess",
+                                                                     false);
+        assertThat(processInstanceThrowSignal).isNotNull();
+    }
+
+    @Then("all the parked signal catch processes are completed within $seconds seconds")
+    public void checkParkedSignalCatchProcessInstancesCompleted(long seconds) {
+        long thrownAtMillis = eventTimestamp(await(AUDIT,
+                                                   "signal-thrown").until(() -> auditSteps.getEventsByProcessInstanceIdAndEventType(processInstanceThrowSignal.getId(),
+                                                                                                                                  "PROCESS_STARTED"),
+                                                                          events -> !events.isEmpty()))
+                .orElseThrow(IllegalStateException::new);
+        SignalStormResult result = signalStorm.awaitCompletion(thrownAtMillis,
+                                                               processInstanceId -> eventTimestamp(auditSteps.getEventsByProcessInstanceIdAndEventType(processInstanceId,
+                                                                                                                                                       "PROCESS_COMPLETED")),
+                                                               Duration.ofSeconds(seconds));
+        PerformanceReport.record("Signal storm " + result.getCatchers() + " catchers on " + result.getRuntimes() + " runtimes",
+                                 result);
+        assertThat(result.getCompleted()).isEqualTo(result.getParked());
+    }
+
+    private static Optional<Long> eventTimestamp(Collection<CloudRuntimeEvent> events) {
+        return events.stream()
+                .map(CloudRuntimeEvent::getTimestamp)
+                .findFirst();
+    }
 }
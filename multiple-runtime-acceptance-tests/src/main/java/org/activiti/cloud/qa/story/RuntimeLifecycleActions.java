@@ -22,8 +22,11 @@ import org.activiti.cloud.acc.core.steps.query.ProcessQuerySteps;
 import org.activiti.cloud.acc.shared.rest.DirtyContextHandler;
 import org.activiti.cloud.acc.shared.rest.EnableDirtyContext;
 import org.activiti.cloud.acc.shared.steps.AuthenticationSteps;
+import org.activiti.cloud.qa.helpers.ReactiveRuntimeClient;
+import org.activiti.cloud.qa.rest.BulkDirtyContextHandler;
 import org.activiti.cloud.qa.steps.MultipleRuntimeBundleSteps;
 import org.jbehave.core.annotations.AfterScenario;
+import org.jbehave.core.annotations.AfterStories;
 import org.jbehave.core.annotations.BeforeStories;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -59,7 +62,20 @@ public class RuntimeLifecycleActions {
 
     @AfterScenario
     public void cleanup() {
-        dirtyContextHandler.cleanup();
+        try {
+            dirtyContextHandler.cleanup();
+        } finally {
+            BulkDirtyContextHandler.cleanup();
+        }
+    }
+
+    @AfterStories
+    public void cleanupDeferred() {
+        try {
+            BulkDirtyContextHandler.cleanupDeferred();
+        } finally {
+            ReactiveRuntimeClient.disposeAll();
+        }
     }
 
 }
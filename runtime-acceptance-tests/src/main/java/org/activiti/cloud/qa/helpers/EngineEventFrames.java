@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads the engineEvents of notification frames with the Jackson streaming parser,
+ * visiting only the selected scalar fields of each event and skipping everything else,
+ * without building the tree or the string of the whole frame.
+ */
+public class EngineEventFrames {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Receives the selected fields of the engine events of a frame
+     */
+    @FunctionalInterface
+    public interface FieldVisitor {
+
+        void field(int eventIndex,
+                   String name,
+                   String value);
+    }
+
+    /**
+     * Visits the selected fields of every engine event of the frame
+     * @return the number of engine events of the frame, or -1 if it is not a data frame
+     */
+    public static int forEachEvent(String frame,
+                                   Set<String> fields,
+                                   FieldVisitor visitor) {
+        try (JsonParser parser = jsonFactory.createParser(frame)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return -1;
+            }
+            boolean dataFrame = false;
+            int events = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("type".equals(name)) {
+                    dataFrame = "data".equals(parser.getText());
+                } else if ("payload".equals(name) && value == JsonToken.START_OBJECT) {
+                    events = payload(parser,
+                                     fields,
+                                     visitor);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return dataFrame ? events : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Waits for the connection_ack frame the notifications service sends once a subscription is live
+     * @return false if the subscription is not acknowledged within the timeout or fails
+     */
+    public static boolean awaitConnectionAck(Flux<String> frames,
+                                             Duration timeout) {
+        return frames.filter(EngineEventFrames::isConnectionAck)
+                .next()
+                .timeout(timeout)
+                .onErrorResume(error -> Mono.empty())
+                .blockOptional()
+                .isPresent();
+    }
+
+    public static boolean isConnectionAck(String frame) {
+        try (JsonParser parser = jsonFactory.createParser(frame)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("type".equals(name)) {
+                    return "connection_ack".equals(parser.getText());
+                }
+                parser.skipChildren();
+            }
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Matches data frames holding exactly the expected engine events, in order,
+     * comparing only the fields given for each expected event
+     */
+    public static Predicate<String> matching(List<Map<String, String>> expectedEvents) {
+        Set<String> fields = new HashSet<>();
+        expectedEvents.forEach(expectedEvent -> fields.addAll(expectedEvent.keySet()));
+        return new Predicate<String>() {
+            @Override
+            public boolean test(String frame) {
+                int[] matchedFields = new int[expectedEvents.size()];
+                boolean[] mismatch = new boolean[1];
+                int events = forEachEvent(frame,
+                                          fields,
+                                          (eventIndex, name, value) -> {
+                                              if (eventIndex >= expectedEvents.size()) {
+                                                  mismatch[0] = true;
+                                              } else if (expectedEvents.get(eventIndex).containsKey(name)) {
+                                                  if (Objects.equals(expectedEvents.get(eventIndex).get(name),
+                                                                     value)) {
+                                                      matchedFields[eventIndex]++;
+                                                  } else {
+                                                      mismatch[0] = true;
+                                                  }
+                                              }
+                                          });
+                if (mismatch[0] || events != expectedEvents.size()) {
+                    return false;
+                }
+                for (int index = 0; index < matchedFields.length; index++) {
+                    if (matchedFields[index] != expectedEvents.get(index).size()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "engine events " + expectedEvents;
+            }
+        };
+    }
+
+    private static int payload(JsonParser parser,
+                               Set<String> fields,
+                               FieldVisitor visitor) throws IOException {
+        int events = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("data".equals(name) && value == JsonToken.START_OBJECT) {
+                events = data(parser,
+                              fields,
+                              visitor);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return events;
+    }
+
+    private static int data(JsonParser parser,
+                            Set<String> fields,
+                            FieldVisitor visitor) throws IOException {
+        int events = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("engineEvents".equals(name) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    event(parser,
+                          events++,
+                          fields,
+                          visitor);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return events;
+    }
+
+    private static void event(JsonParser parser,
+                              int eventIndex,
+                              Set<String> fields,
+                              FieldVisitor visitor) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value.isScalarValue() && fields.contains(name)) {
+                visitor.field(eventIndex,
+                              name,
+                              value == JsonToken.VALUE_NULL ? null : parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import static org.activiti.cloud.qa.polling.AdaptivePolling.await;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.activiti.cloud.acc.core.steps.notifications.NotificationsSteps;
+import org.activiti.cloud.qa.polling.AdaptivePolling;
+import org.awaitility.core.ConditionFactory;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.ReplayProcessor;
+
+/**
+ * Waits for the engine events of the notifications service before checking
+ * the query and audit views, so that eventually consistent checks do not poll
+ * while nothing has happened yet.
+ * <p>
+ * A single engineEvents subscription per scenario is opened by the lifecycle
+ * steps when -Dengine.events.waits=true, with the token of the first user authenticated
+ * in the scenario, and is used once the notifications service acknowledged it. The command
+ * steps mark the stream with {@link #commandSent(String...)} before sending their command,
+ * and every wait then blocks until a matching event arrived after the mark, and returns the
+ * adaptive polling condition of the check for the actual check, with the whole timeout.
+ * Without subscription, on timeout or when the subscription fails, the check simply polls
+ * as before.
+ */
+public class EngineEventWaits {
+
+    public static final String ENABLED_PROPERTY = "engine.events.waits";
+
+    private static final Logger logger = LoggerFactory.getLogger(EngineEventWaits.class);
+
+    private static final Duration CONNECTION_ACK_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final String QUERY = "subscription($serviceName: String!) {" +
+            "  engineEvents(serviceName: [$serviceName]) {" +
+            "    serviceName " +
+            "    processInstanceId " +
+            "    businessKey " +
+            "    eventType " +
+            "  }" +
+            "}";
+
+    private static final String LAST_COMMAND = "";
+
+    private static final Set<String> EVENT_FIELDS = new HashSet<>(Arrays.asList("eventType",
+                                                                                "processInstanceId",
+                                                                                "businessKey"));
+
+    private static ReplayProcessor<String> events;
+
+    private static final AtomicLong receivedFrames = new AtomicLong();
+
+    private static final Map<String, Long> commandMarks = new ConcurrentHashMap<>();
+
+    private static AtomicReference<Subscription> subscriptionRef;
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Subscribes to the engine events of the runtime bundle with the access token,
+     * unless the scenario is already subscribed
+     */
+    public static synchronized void open(NotificationsSteps notificationsSteps,
+                                         String accessToken) {
+        if (!isEnabled() || subscriptionRef != null) {
+            return;
+        }
+        Map<String, Object> variables = new LinkedHashMap<>();
+        variables.put("serviceName",
+                      notificationsSteps.getRuntimeBundleServiceName());
+        subscriptionRef = new AtomicReference<>();
+        ReplayProcessor<String> frames = notificationsSteps.subscribe(accessToken,
+                                                                      QUERY,
+                                                                      variables,
+                                                                      subscriptionRef::set);
+        receivedFrames.set(0);
+        frames.subscribe(frame -> receivedFrames.incrementAndGet());
+        if (!EngineEventFrames.awaitConnectionAck(frames,
+                                                  CONNECTION_ACK_TIMEOUT)) {
+            logger.warn("The engine events subscription was not acknowledged within {}, polling instead",
+                        CONNECTION_ACK_TIMEOUT);
+            cancel();
+            return;
+        }
+        events = frames;
+    }
+
+    /**
+     * Cancels the subscription of the scenario, if any, so that the next authentication opens a new one
+     */
+    public static synchronized void close() {
+        cancel();
+        subscriptionRef = null;
+        commandMarks.clear();
+    }
+
+    private static void cancel() {
+        if (subscriptionRef != null && subscriptionRef.get() != null) {
+            subscriptionRef.get().cancel();
+        }
+        events = null;
+    }
+
+    /**
+     * Marks the frames received so far as earlier than the command about to be sent,
+     * for the next waits and for the waits on one of the subjects, like a variable name
+     */
+    public static void commandSent(String... subjects) {
+        long mark = events != null ? receivedFrames.get() : 0;
+        commandMarks.put(LAST_COMMAND,
+                         mark);
+        for (String subject : subjects) {
+            commandMarks.put(subject,
+                             mark);
+        }
+    }
+
+    /**
+     * @return the mark of the last command sent on the subject, or of the last command of the scenario
+     */
+    public static long sinceCommandOn(String subject) {
+        return commandMarks.getOrDefault(subject,
+                                         sinceLastCommand());
+    }
+
+    private static long sinceLastCommand() {
+        return commandMarks.getOrDefault(LAST_COMMAND,
+                                         0L);
+    }
+
+    /**
+     * Waits for one of the event types on the process instance, then returns the condition to check its effect on the endpoint with
+     */
+    public static ConditionFactory afterProcessInstanceEvent(String endpoint,
+                                                             String check,
+                                                             String processInstanceId,
+                                                             String... eventTypes) {
+        return afterProcessInstanceEvent(AdaptivePolling.DEFAULT_TIMEOUT,
+                                         endpoint,
+                                         check,
+                                         processInstanceId,
+                                         eventTypes);
+    }
+
+    public static ConditionFactory afterProcessInstanceEvent(Duration timeout,
+                                                             String endpoint,
+                                                             String check,
+                                                             String processInstanceId,
+                                                             String... eventTypes) {
+        return afterProcessInstanceEvent(sinceLastCommand(),
+                                         timeout,
+                                         endpoint,
+                                         check,
+                                         processInstanceId,
+                                         eventTypes);
+    }
+
+    /**
+     * Waits for one of the event types on the process instance among the frames received after the mark
+     */
+    public static ConditionFactory afterProcessInstanceEvent(long since,
+                                                             Duration timeout,
+                                                             String endpoint,
+                                                             String check,
+                                                             String processInstanceId,
+                                                             String... eventTypes) {
+        waitFor("processInstanceId",
+                processInstanceId,
+                since,
+                timeout,
+                eventTypes);
+        return await(endpoint,
+                     check,
+                     timeout);
+    }
+
+    /**
+     * Waits for one of the event types on a process instance with the business key, then returns the condition to check its effect on the endpoint with
+     */
+    public static ConditionFactory afterBusinessKeyEvent(Duration timeout,
+                                                         String endpoint,
+                                                         String check,
+                                                         String businessKey,
+                                                         String... eventTypes) {
+        waitFor("businessKey",
+                businessKey,
+                sinceLastCommand(),
+                timeout,
+                eventTypes);
+        return await(endpoint,
+                     check,
+                     timeout);
+    }
+
+    private static boolean waitFor(String field,
+                                   String value,
+                                   long since,
+                                   Duration timeout,
+                                   String... eventTypes) {
+        ReplayProcessor<String> scenarioEvents = events;
+        if (scenarioEvents == null) {
+            return false;
+        }
+        List<String> expectedEventTypes = Arrays.asList(eventTypes);
+        return scenarioEvents.skip(since)
+                .filter(frame -> matches(frame,
+                                         field,
+                                         value,
+                                         expectedEventTypes))
+                .next()
+                .timeout(timeout)
+                .onErrorResume(error -> Mono.empty())
+                .blockOptional()
+                .isPresent();
+    }
+
+    private static boolean matches(String frame,
+                                   String field,
+                                   String value,
+                                   List<String> expectedEventTypes) {
+        Map<Integer, Map<String, String>> fieldsByEvent = new HashMap<>();
+        EngineEventFrames.forEachEvent(frame,
+                                       EVENT_FIELDS,
+                                       (eventIndex, name, fieldValue) -> fieldsByEvent
+                                               .computeIfAbsent(eventIndex,
+                                                                index -> new HashMap<>())
+                                               .put(name,
+                                                    fieldValue));
+        return fieldsByEvent.values()
+                .stream()
+                .anyMatch(event -> expectedEventTypes.contains(event.get("eventType"))
+                        && value.equals(event.get(field)));
+    }
+}
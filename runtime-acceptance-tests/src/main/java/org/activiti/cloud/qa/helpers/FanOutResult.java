@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import org.activiti.cloud.qa.metrics.LatencySummary;
+
+/**
+ * Outcome of a {@link NotificationFanOut}
+ */
+public class FanOutResult {
+
+    private final int subscribers;
+
+    private final long expectedEvents;
+
+    private final long receivedEvents;
+
+    private final long droppedEvents;
+
+    private final long heapBytesPerSubscriber;
+
+    private final LatencySummary deliveryLatency;
+
+    public FanOutResult(int subscribers,
+                        long expectedEvents,
+                        long receivedEvents,
+                        long droppedEvents,
+                        long heapBytesPerSubscriber,
+                        LatencySummary deliveryLatency) {
+        this.subscribers = subscribers;
+        this.expectedEvents = expectedEvents;
+        this.receivedEvents = receivedEvents;
+        this.droppedEvents = droppedEvents;
+        this.heapBytesPerSubscriber = heapBytesPerSubscriber;
+        this.deliveryLatency = deliveryLatency;
+    }
+
+    public int getSubscribers() {
+        return subscribers;
+    }
+
+    public long getExpectedEvents() {
+        return expectedEvents;
+    }
+
+    public long getReceivedEvents() {
+        return receivedEvents;
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    public long getHeapBytesPerSubscriber() {
+        return heapBytesPerSubscriber;
+    }
+
+    public LatencySummary getDeliveryLatency() {
+        return deliveryLatency;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.HdrHistogram.Histogram;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+import org.activiti.cloud.qa.metrics.LatencySummary;
+import org.activiti.cloud.qa.tokens.TokenCache;
+
+/**
+ * Drives a fixed arrival rate of requests from a number of concurrent sessions.
+ * <p>
+ * Each request has an intended start time on the arrival schedule and its latency
+ * is measured from that time, so a saturated backend shows up as growing latency
+ * instead of a silently lower request rate.
+ * <p>
+ * Every session runs on a thread of its own with the access token of the session, see
+ * {@link LoadSessions}, so requests go through the {@link ReactiveRuntimeClient} rather
+ * than the Serenity steps, which hold the token of the story thread. The load gives up
+ * -Dacceptance.load.grace seconds (120 by default) after the end of its schedule.
+ */
+public class FixedRateLoad {
+
+    public static final String GRACE_PROPERTY = "acceptance.load.grace";
+
+    private static final long DEFAULT_GRACE_SECONDS = 120;
+
+    private static final int MAX_RECORDED_FAILURES = 10;
+
+    private final List<String> sessionTokens;
+
+    private final int requests;
+
+    private final double ratePerSecond;
+
+    public FixedRateLoad(List<String> sessionTokens,
+                         int requests,
+                         double ratePerSecond) {
+        if (sessionTokens.isEmpty() || requests < 0 || ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Load needs at least one session and a positive rate");
+        }
+        this.sessionTokens = sessionTokens;
+        this.requests = requests;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    /**
+     * Sends the requests, each one with the access token of its session
+     */
+    public LoadResult run(String name,
+                          Consumer<String> request) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        Histogram latency = LatencyHistograms.newHistogram();
+        AtomicInteger nextRequest = new AtomicInteger();
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        List<String> failures = new CopyOnWriteArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(sessionTokens.size());
+        long startNanos = System.nanoTime();
+        for (String sessionToken : sessionTokens) {
+            executor.execute(() -> {
+                int index;
+                while ((index = nextRequest.getAndIncrement()) < requests && !Thread.currentThread().isInterrupted()) {
+                    long intendedStartNanos = startNanos + index * intervalNanos;
+                    long waitNanos = intendedStartNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        LockSupport.parkNanos(waitNanos);
+                    }
+                    try {
+                        request.accept(TokenCache.current(sessionToken));
+                        LatencyHistograms.recordNanos(latency,
+                                                      System.nanoTime() - intendedStartNanos);
+                        completed.incrementAndGet();
+                    } catch (Exception | AssertionError failure) {
+                        recordFailure(failure.toString(),
+                                      errors,
+                                      failures);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        long timeoutNanos = requests * intervalNanos + TimeUnit.SECONDS.toNanos(Long.getLong(GRACE_PROPERTY,
+                                                                                             DEFAULT_GRACE_SECONDS));
+        if (!executor.awaitTermination(timeoutNanos,
+                                       TimeUnit.NANOSECONDS)) {
+            executor.shutdownNow();
+            recordFailure("load " + name + " did not finish within " + TimeUnit.NANOSECONDS.toSeconds(timeoutNanos) + " seconds",
+                          errors,
+                          failures);
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        return new LoadResult(name,
+                              completed.get(),
+                              errors.get(),
+                              elapsedMillis,
+                              LatencySummary.of(latency),
+                              failures);
+    }
+
+    private static void recordFailure(String failure,
+                                      AtomicLong errors,
+                                      List<String> failures) {
+        errors.incrementAndGet();
+        if (failures.size() < MAX_RECORDED_FAILURES) {
+            failures.add(failure);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import java.util.List;
+
+import org.activiti.cloud.qa.metrics.LatencySummary;
+/**
+ * Outcome of a {@link FixedRateLoad} run
+ */
+public class LoadResult {
+
+    private final String name;
+
+    private final long completed;
+
+    private final long errors;
+
+    private final long elapsedMillis;
+
+    private final LatencySummary latency;
+
+    private final List<String> failures;
+
+    public LoadResult(String name,
+                      long completed,
+                      long errors,
+                      long elapsedMillis,
+                      LatencySummary latency,
+                      List<String> failures) {
+        this.name = name;
+        this.completed = completed;
+        this.errors = errors;
+        this.elapsedMillis = elapsedMillis;
+        this.latency = latency;
+        this.failures = failures;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getThroughputPerSecond() {
+        return elapsedMillis == 0 ? 0 : completed * 1000.0 / elapsedMillis;
+    }
+
+    public LatencySummary getLatency() {
+        return latency;
+    }
+
+    public List<String> getFailures() {
+        return failures;
+    }
+}
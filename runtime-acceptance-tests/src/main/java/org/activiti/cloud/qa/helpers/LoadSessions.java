@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.activiti.cloud.acc.shared.model.AuthToken;
+import org.activiti.cloud.acc.shared.rest.TokenHolder;
+import org.activiti.cloud.acc.shared.steps.AuthenticationSteps;
+import org.activiti.cloud.qa.tokens.TokenCache;
+
+/**
+ * Access tokens of the sessions of a {@link FixedRateLoad}, obtained from the story thread
+ */
+public class LoadSessions {
+
+    /**
+     * Authenticates the current user once per session, then restores its token,
+     * so that every session of the load sends its requests with a token of its own
+     */
+    public static List<String> authenticate(AuthenticationSteps authenticationSteps,
+                                            int sessions) {
+        AuthToken currentToken = TokenHolder.getAuthToken();
+        String username = TokenCache.username(currentToken.getAccess_token());
+        List<String> sessionTokens = new ArrayList<>();
+        try {
+            for (int session = 0; session < sessions; session++) {
+                authenticationSteps.authenticateUser(username);
+                sessionTokens.add(TokenHolder.getAuthToken().getAccess_token());
+            }
+        } finally {
+            TokenHolder.setAuthToken(currentToken);
+        }
+        return sessionTokens;
+    }
+
+    /**
+     * The token of the current user for every session, for loads that stand for a single user
+     */
+    public static List<String> shared(int sessions) {
+        return Collections.nCopies(sessions,
+                                   TokenHolder.getAuthToken().getAccess_token());
+    }
+}
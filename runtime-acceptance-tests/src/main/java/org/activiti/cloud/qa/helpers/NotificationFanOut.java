@@ -0,0 +1,269 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.activiti.cloud.acc.core.steps.notifications.NotificationsSteps;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+
+/**
+ * Many concurrent engineEvents subscriptions, each filtered on one business key
+ * and one event type, round robin over the given ones.
+ * <p>
+ * Every received event is counted for its subscriber and its delivery latency, from
+ * the engine timestamp of the event to its arrival, recorded in the histogram of
+ * {@link #histogramName()}, by number of subscribers and filter, so that runs of
+ * different sizes are not mixed; the latency is only meaningful with the client and
+ * cluster clocks in sync.
+ * The expected events of a subscriber are the instances started with its business key,
+ * so the event types must occur once per process instance.
+ * <p>
+ * The heap per subscriber is the growth of the used heap from before subscribing to its
+ * peak while the events are delivered, sampled every 100 ms. It includes the garbage of
+ * the load itself, so it is an upper bound.
+ */
+public class NotificationFanOut {
+
+    public static final String HISTOGRAM_PREFIX = "notifications.fan-out.delivery.";
+
+    private static final String QUERY = "subscription($serviceName: String!, $eventTypes: [EngineEventType!], $businessKey: String!) {" +
+            "  engineEvents(serviceName: [$serviceName], eventType: $eventTypes, businessKey: [$businessKey]) {" +
+            "    processInstanceId " +
+            "    businessKey " +
+            "    eventType " +
+            "    timestamp " +
+            "  }" +
+            "}";
+
+    private static final Set<String> TIMESTAMP = Collections.singleton("timestamp");
+
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    private final Map<String, AtomicLong> startedInstances = new ConcurrentHashMap<>();
+
+    private final List<String> businessKeys;
+
+    private final List<String> eventTypes;
+
+    private final AtomicLong peakHeapBytes = new AtomicLong();
+
+    private ScheduledExecutorService heapSampler;
+
+    private long heapBytesBefore;
+
+    private int subscriberCount;
+
+    public NotificationFanOut(List<String> businessKeys,
+                              List<String> eventTypes) {
+        this.businessKeys = businessKeys;
+        this.eventTypes = eventTypes;
+    }
+
+    /**
+     * Opens the subscriptions with the token and waits until the notifications service acknowledged all of them
+     */
+    public void open(NotificationsSteps notificationsSteps,
+                     String token,
+                     int subscriberCount,
+                     Duration timeout) throws InterruptedException {
+        this.subscriberCount = subscriberCount;
+        String histogramName = histogramName();
+        System.gc();
+        heapBytesBefore = usedHeapBytes();
+        CountDownLatch acknowledged = new CountDownLatch(subscriberCount);
+        for (int index = 0; index < subscriberCount; index++) {
+            Subscriber subscriber = new Subscriber(businessKeys.get(index % businessKeys.size()),
+                                                   eventTypes.get(index % eventTypes.size()),
+                                                   histogramName);
+            Map<String, Object> variables = new LinkedHashMap<>();
+            variables.put("serviceName",
+                          notificationsSteps.getRuntimeBundleServiceName());
+            variables.put("eventTypes",
+                          new String[]{subscriber.eventType});
+            variables.put("businessKey",
+                          subscriber.businessKey);
+            subscriber.messages = notificationsSteps.subscribe(token,
+                                                               QUERY,
+                                                               variables,
+                                                               subscriber.subscription::set)
+                    .subscribe(message -> {
+                        if (EngineEventFrames.isConnectionAck(message)) {
+                            acknowledged.countDown();
+                        } else {
+                            subscriber.onMessage(message,
+                                                 System.currentTimeMillis());
+                        }
+                    });
+            subscribers.add(subscriber);
+        }
+        if (!acknowledged.await(timeout.toMillis(),
+                                TimeUnit.MILLISECONDS)) {
+            throw new AssertionError(acknowledged.getCount() + " of " + subscriberCount + " subscriptions not acknowledged in " + timeout);
+        }
+        peakHeapBytes.set(heapBytesBefore);
+        heapSampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable,
+                                       "fan-out-heap-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heapSampler.scheduleAtFixedRate(() -> peakHeapBytes.accumulateAndGet(usedHeapBytes(),
+                                                                             Math::max),
+                                        0,
+                                        100,
+                                        TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The business key for the next process instance, round robin
+     */
+    public String businessKey(int index) {
+        return businessKeys.get(index % businessKeys.size());
+    }
+
+    public void instanceStarted(String businessKey) {
+        startedInstances.computeIfAbsent(businessKey,
+                                         key -> new AtomicLong())
+                .incrementAndGet();
+    }
+
+    /**
+     * Waits up to the timeout for every subscriber to receive its expected events
+     */
+    public FanOutResult awaitDelivery(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (missingEvents() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        stopHeapSampler();
+        long heapBytesPerSubscriber = subscribers.isEmpty() ? 0 : Math.max(peakHeapBytes.get() - heapBytesBefore, 0) / subscribers.size();
+        long expected = 0;
+        long received = 0;
+        long dropped = 0;
+        for (Subscriber subscriber : subscribers) {
+            long expectedBySubscriber = expected(subscriber);
+            expected += expectedBySubscriber;
+            received += subscriber.received.get();
+            dropped += Math.max(expectedBySubscriber - subscriber.received.get(),
+                                0);
+        }
+        return new FanOutResult(subscribers.size(),
+                                expected,
+                                received,
+                                dropped,
+                                heapBytesPerSubscriber,
+                                LatencyHistograms.summary(histogramName()));
+    }
+
+    public String histogramName() {
+        return HISTOGRAM_PREFIX + subscriberCount + "-subscribers." + String.join("-", eventTypes) + "." + businessKeys.size() + "-business-keys";
+    }
+
+    public void close() {
+        stopHeapSampler();
+        subscribers.forEach(Subscriber::close);
+        subscribers.clear();
+    }
+
+    private void stopHeapSampler() {
+        if (heapSampler != null) {
+            heapSampler.shutdownNow();
+            heapSampler = null;
+        }
+    }
+
+    private long missingEvents() {
+        return subscribers.stream()
+                .mapToLong(subscriber -> Math.max(expected(subscriber) - subscriber.received.get(),
+                                                  0))
+                .sum();
+    }
+
+    private long expected(Subscriber subscriber) {
+        AtomicLong started = startedInstances.get(subscriber.businessKey);
+        return started == null ? 0 : started.get();
+    }
+
+    private static long usedHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class Subscriber {
+
+        private final String businessKey;
+
+        private final String eventType;
+
+        private final String histogramName;
+
+        private final AtomicLong received = new AtomicLong();
+
+        private final AtomicReference<Subscription> subscription = new AtomicReference<>();
+
+        private Disposable messages;
+
+        private Subscriber(String businessKey,
+                           String eventType,
+                           String histogramName) {
+            this.businessKey = businessKey;
+            this.eventType = eventType;
+            this.histogramName = histogramName;
+        }
+
+        private void onMessage(String message,
+                               long receivedAtMillis) {
+            int events = EngineEventFrames.forEachEvent(message,
+                                                        TIMESTAMP,
+                                                        (eventIndex, field, timestamp) -> {
+                                                            if (timestamp != null) {
+                                                                LatencyHistograms.recordMillis(histogramName,
+                                                                                               receivedAtMillis - Long.parseLong(timestamp));
+                                                            }
+                                                        });
+            if (events > 0) {
+                received.addAndGet(events);
+            }
+        }
+
+        private void close() {
+            if (subscription.get() != null) {
+                subscription.get().cancel();
+            }
+            if (messages != null) {
+                messages.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+
+/**
+ * End to end latency of the notifications of a scenario, from the runtime command
+ * that produced them to their arrival on the subscription.
+ * <p>
+ * Each notification frame is timestamped on arrival, and each of its events is
+ * correlated by its business key or process instance id with the last command
+ * sent for either of them. The latency of every correlated event is recorded in
+ * the histogram notifications.latency.&lt;eventType&gt; of the run, and in a histogram
+ * of the subscription for the latency objectives of the scenario; events of other
+ * process instances, e.g. the ones started by a signal, are ignored.
+ */
+public class NotificationLatency {
+
+    public static final String HISTOGRAM_PREFIX = "notifications.latency.";
+
+    private static final Set<String> FIELDS = new HashSet<>(Arrays.asList("eventType",
+                                                                          "businessKey",
+                                                                          "processInstanceId"));
+
+    private final List<Measurement> measurements = new CopyOnWriteArrayList<>();
+
+    private final Map<String, Command> lastCommands = new ConcurrentHashMap<>();
+
+    private final Map<String, Histogram> subscriptionHistograms = new ConcurrentHashMap<>();
+
+    /**
+     * To call right before sending the command to the runtime bundle, with the business key
+     * and the process instance id its events can carry, when known
+     */
+    public void commandSent(String command,
+                            String... correlationKeys) {
+        Command sent = new Command(command,
+                                   System.nanoTime());
+        for (String correlationKey : correlationKeys) {
+            if (correlationKey != null) {
+                lastCommands.put(correlationKey,
+                                 sent);
+            }
+        }
+    }
+
+    /**
+     * To call on arrival of each frame of the subscription
+     */
+    public void received(String message) {
+        long arrivalNanos = System.nanoTime();
+        List<Map<String, String>> events = new ArrayList<>();
+        EngineEventFrames.forEachEvent(message,
+                                       FIELDS,
+                                       (eventIndex, field, value) -> {
+                                           while (events.size() <= eventIndex) {
+                                               events.add(new HashMap<>());
+                                           }
+                                           events.get(eventIndex).put(field,
+                                                                      value);
+                                       });
+        for (Map<String, String> event : events) {
+            Command command = lastCommand(event.get("businessKey"),
+                                          event.get("processInstanceId"));
+            String eventType = event.get("eventType");
+            if (command == null || eventType == null) {
+                continue;
+            }
+            long latencyNanos = arrivalNanos - command.sentNanos;
+            LatencyHistograms.recordNanos(histogramName(eventType),
+                                          latencyNanos);
+            LatencyHistograms.recordNanos(subscriptionHistograms.computeIfAbsent(eventType,
+                                                                                 type -> LatencyHistograms.newHistogram()),
+                                          latencyNanos);
+            measurements.add(new Measurement(command.name,
+                                             eventType,
+                                             TimeUnit.NANOSECONDS.toMicros(latencyNanos) / 1000.0));
+        }
+    }
+
+    private Command lastCommand(String... correlationKeys) {
+        Command last = null;
+        for (String correlationKey : correlationKeys) {
+            Command command = correlationKey == null ? null : lastCommands.get(correlationKey);
+            if (command != null && (last == null || command.sentNanos - last.sentNanos > 0)) {
+                last = command;
+            }
+        }
+        return last;
+    }
+
+    public List<Measurement> getMeasurements() {
+        return measurements;
+    }
+
+    /**
+     * The number of events of the type notified on this subscription
+     */
+    public long count(String eventType) {
+        Histogram histogram = subscriptionHistograms.get(eventType);
+        return histogram == null ? 0 : histogram.getTotalCount();
+    }
+
+    /**
+     * The latency of the events of the type notified on this subscription at the percentile
+     */
+    public double percentileMillis(String eventType,
+                                   double percentile) {
+        Histogram histogram = subscriptionHistograms.get(eventType);
+        return histogram == null ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public static String histogramName(String eventType) {
+        return HISTOGRAM_PREFIX + eventType;
+    }
+
+    private static class Command {
+
+        private final String name;
+
+        private final long sentNanos;
+
+        private Command(String name,
+                        long sentNanos) {
+            this.name = name;
+            this.sentNanos = sentNanos;
+        }
+    }
+
+    /**
+     * Latency of one notified event
+     */
+    public static class Measurement {
+
+        private final String command;
+
+        private final String eventType;
+
+        private final double latencyMillis;
+
+        Measurement(String command,
+                    String eventType,
+                    double latencyMillis) {
+            this.command = command;
+            this.eventType = eventType;
+            this.latencyMillis = latencyMillis;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public String getEventType() {
+            return eventType;
+        }
+
+        public double getLatencyMillis() {
+            return latencyMillis;
+        }
+    }
+}
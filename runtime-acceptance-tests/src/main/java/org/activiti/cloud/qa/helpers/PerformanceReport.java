@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import net.serenitybdd.core.Serenity;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+import org.activiti.cloud.qa.metrics.LatencySummary;
+
+/**
+ * Publishes performance measurements to the Serenity report and
+ * as JSON files under target/performance of the module.
+ */
+public class PerformanceReport {
+
+    private static final ObjectWriter writer = new ObjectMapper().writerWithDefaultPrettyPrinter();
+
+    /**
+     * Attaches the data to the current Serenity step and writes it to a JSON file
+     */
+    public static void record(String title,
+                              Object data) {
+        String json = toJson(data);
+        Serenity.recordReportData()
+                .withTitle(title)
+                .andContents(json);
+        writeJson(title,
+                  json);
+    }
+
+    /**
+     * Attaches the data to the current Serenity step only
+     */
+    public static void attach(String title,
+                              Object data) {
+        Serenity.recordReportData()
+                .withTitle(title)
+                .andContents(toJson(data));
+    }
+
+    /**
+     * Writes the data to a JSON file only, for use outside of a running scenario
+     */
+    public static void write(String title,
+                             Object data) {
+        writeJson(title,
+                  toJson(data));
+    }
+
+    /**
+     * Writes the summaries of the histograms having the given prefix to a JSON file
+     * and the percentile distribution of each histogram, in milliseconds, to a .hgrm file
+     */
+    public static void writeHistograms(String title,
+                                       String prefix) {
+        Map<String, LatencySummary> summaries = LatencyHistograms.summaries(prefix);
+        if (summaries.isEmpty()) {
+            return;
+        }
+        write(title,
+              summaries);
+        summaries.keySet().forEach(PerformanceReport::writePercentileDistribution);
+    }
+
+    public static Path reportDirectory() {
+        return Paths.get(System.getProperty("basedir", "."),
+                         "target",
+                         "performance");
+    }
+
+    private static void writeJson(String title,
+                                  String json) {
+        try {
+            Path directory = Files.createDirectories(reportDirectory());
+            Files.write(directory.resolve(fileName(title)),
+                        json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write performance report " + title,
+                                           e);
+        }
+    }
+
+    private static void writePercentileDistribution(String histogramName) {
+        try {
+            Path directory = Files.createDirectories(reportDirectory());
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(slug(histogramName) + ".hgrm")),
+                                                   false,
+                                                   StandardCharsets.UTF_8.name())) {
+                LatencyHistograms.histogram(histogramName)
+                        .copy()
+                        .outputPercentileDistribution(out,
+                                                      1000.0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write histogram " + histogramName,
+                                           e);
+        }
+    }
+
+    private static String fileName(String title) {
+        return slug(title) + ".json";
+    }
+
+    private static String slug(String title) {
+        return title.toLowerCase()
+                .replaceAll("[^a-z0-9]+", "-")
+                .replaceAll("(^-|-$)", "");
+    }
+
+    private static String toJson(Object data) {
+        try {
+            return writer.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unable to serialize performance data",
+                                               e);
+        }
+    }
+}
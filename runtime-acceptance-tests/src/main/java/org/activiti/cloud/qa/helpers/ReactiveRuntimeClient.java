@@ -0,0 +1,345 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.activiti.api.process.model.payloads.ReceiveMessagePayload;
+import org.activiti.api.process.model.payloads.StartMessagePayload;
+import org.activiti.api.process.model.payloads.StartProcessPayload;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.model.payloads.CreateTaskPayload;
+import org.activiti.cloud.api.process.model.CloudProcessInstance;
+import org.activiti.cloud.api.process.model.impl.CloudProcessInstanceImpl;
+import org.activiti.cloud.api.task.model.CloudTask;
+import org.activiti.cloud.api.task.model.impl.CloudTaskImpl;
+import org.activiti.cloud.qa.rest.BulkDirtyContextHandler;
+import org.activiti.cloud.qa.rest.PooledHttpTransport;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Non-blocking counterparts of the runtime bundle steps, for scenarios keeping
+ * many process instances in flight from a few threads.
+ * <p>
+ * Calls go through a reactive HTTP client and take the access token explicitly, as they
+ * complete outside of the step thread that holds the token of the authenticated user.
+ * Nothing is sent until the returned {@link Mono} is subscribed.
+ * <p>
+ * There is one client, and one connection pool, per runtime bundle URL, shared by the story
+ * classes through {@link #of(String)} and released by {@link #disposeAll()} at the end of the stories.
+ * The pool of a runtime bundle is sized and compressed as a route of the {@link PooledHttpTransport}.
+ */
+public class ReactiveRuntimeClient {
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Map<String, ReactiveRuntimeClient> clientsByUrl = new ConcurrentHashMap<>();
+
+    private final ConnectionProvider connectionProvider;
+
+    private final WebClient webClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration timeout;
+
+    private ReactiveRuntimeClient(String runtimeBundleUrl,
+                                  Duration timeout) {
+        this.timeout = timeout;
+        this.objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+                           false);
+        this.connectionProvider = ConnectionProvider.fixed("runtime-bundle",
+                                                           PooledHttpTransport.maxConnectionsPerRoute());
+        this.webClient = WebClient.builder()
+                .baseUrl(runtimeBundleUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)
+                                                                          .compress(PooledHttpTransport.isCompressed())))
+                .exchangeStrategies(ExchangeStrategies.builder()
+                                            .codecs(codecs -> {
+                                                codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                                                codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                                            })
+                                            .build())
+                .defaultHeader(HttpHeaders.ACCEPT,
+                               MediaType.APPLICATION_JSON_VALUE,
+                               "application/hal+json")
+                .build();
+    }
+
+    /**
+     * The client of the runtime bundle URL, created on first use
+     */
+    public static ReactiveRuntimeClient of(String runtimeBundleUrl) {
+        return clientsByUrl.computeIfAbsent(runtimeBundleUrl,
+                                            url -> new ReactiveRuntimeClient(url,
+                                                                             DEFAULT_TIMEOUT));
+    }
+
+    /**
+     * Closes the connection pools of all the clients, once nothing is sent through them anymore
+     */
+    public static void disposeAll() {
+        for (String runtimeBundleUrl : clientsByUrl.keySet()) {
+            ReactiveRuntimeClient client = clientsByUrl.remove(runtimeBundleUrl);
+            if (client != null) {
+                client.connectionProvider.dispose();
+            }
+        }
+    }
+
+    public Mono<CloudProcessInstance> startProcess(String token,
+                                                   StartProcessPayload startProcessPayload) {
+        return post(token,
+                    "/v1/process-instances",
+                    startProcessPayload)
+                .bodyToMono(CloudProcessInstanceImpl.class)
+                .cast(CloudProcessInstance.class)
+                .timeout(timeout);
+    }
+
+    /**
+     * The process instance, or nothing once it completed or was deleted
+     */
+    public Mono<CloudProcessInstance> getProcessInstance(String token,
+                                                         String processInstanceId) {
+        return webClient.get()
+                .uri("/v1/process-instances/{processInstanceId}",
+                     processInstanceId)
+                .header(HttpHeaders.AUTHORIZATION,
+                        "Bearer " + token)
+                .retrieve()
+                .bodyToMono(CloudProcessInstanceImpl.class)
+                .cast(CloudProcessInstance.class)
+                .onErrorResume(WebClientResponseException.NotFound.class,
+                               notFound -> Mono.empty())
+                .timeout(timeout);
+    }
+
+    /**
+     * Deletes the process instance, a process instance that is already gone counts as deleted
+     */
+    public Mono<Void> deleteProcessInstance(String token,
+                                            String processInstanceId) {
+        return webClient.delete()
+                .uri("/v1/process-instances/{processInstanceId}",
+                     processInstanceId)
+                .header(HttpHeaders.AUTHORIZATION,
+                        "Bearer " + token)
+                .retrieve()
+                .bodyToMono(Void.class)
+                .onErrorResume(WebClientResponseException.NotFound.class,
+                               notFound -> Mono.empty())
+                .timeout(timeout);
+    }
+
+    /**
+     * Registers the deletion of a process instance started through this client with the
+     * {@link BulkDirtyContextHandler}, to be run with the access token of its owner
+     */
+    public void markDirty(String ownerToken,
+                          String processInstanceId) {
+        BulkDirtyContextHandler.dirty(processInstanceId,
+                                      ownerToken,
+                                      token -> deleteProcessInstance(token,
+                                                                     processInstanceId)
+                                              .block());
+    }
+
+    public Mono<List<CloudTask>> getTasks(String token,
+                                          String processInstanceId) {
+        return get(token,
+                   "/v1/process-instances/{processInstanceId}/tasks",
+                   processInstanceId)
+                .map(resources -> embedded(resources,
+                                           CloudTaskImpl.class));
+    }
+
+    public Mono<CloudTask> createTask(String token,
+                                      CreateTaskPayload createTaskPayload) {
+        return post(token,
+                    "/v1/tasks",
+                    createTaskPayload)
+                .bodyToMono(CloudTaskImpl.class)
+                .cast(CloudTask.class)
+                .timeout(timeout);
+    }
+
+    /**
+     * Deletes the task, a task that is already gone counts as deleted
+     */
+    public Mono<Void> deleteTask(String token,
+                                 String taskId) {
+        return webClient.delete()
+                .uri("/v1/tasks/{taskId}",
+                     taskId)
+                .header(HttpHeaders.AUTHORIZATION,
+                        "Bearer " + token)
+                .retrieve()
+                .bodyToMono(Void.class)
+                .onErrorResume(WebClientResponseException.NotFound.class,
+                               notFound -> Mono.empty())
+                .timeout(timeout);
+    }
+
+    public Mono<CloudTask> claimTask(String token,
+                                     String taskId) {
+        return post(token,
+                    "/v1/tasks/" + taskId + "/claim",
+                    null)
+                .bodyToMono(CloudTaskImpl.class)
+                .cast(CloudTask.class)
+                .timeout(timeout);
+    }
+
+    public Mono<Void> saveTask(String token,
+                               String taskId,
+                               Map<String, Object> variables) {
+        return post(token,
+                    "/v1/tasks/" + taskId + "/save",
+                    TaskPayloadBuilder
+                            .save()
+                            .withTaskId(taskId)
+                            .withVariables(variables)
+                            .build())
+                .bodyToMono(Void.class)
+                .timeout(timeout);
+    }
+
+    public Mono<CloudTask> completeTask(String token,
+                                        String taskId,
+                                        Map<String, Object> variables) {
+        return post(token,
+                    "/v1/tasks/" + taskId + "/complete",
+                    TaskPayloadBuilder
+                            .complete()
+                            .withTaskId(taskId)
+                            .withVariables(variables)
+                            .build())
+                .bodyToMono(CloudTaskImpl.class)
+                .cast(CloudTask.class)
+                .timeout(timeout);
+    }
+
+    public Mono<CloudProcessInstance> startMessage(String token,
+                                                   StartMessagePayload startMessagePayload) {
+        return post(token,
+                    "/v1/messages/start",
+                    startMessagePayload)
+                .bodyToMono(CloudProcessInstanceImpl.class)
+                .cast(CloudProcessInstance.class)
+                .timeout(timeout);
+    }
+
+    public Mono<Void> receiveMessage(String token,
+                                     ReceiveMessagePayload receiveMessagePayload) {
+        return post(token,
+                    "/v1/messages/receive",
+                    receiveMessagePayload)
+                .bodyToMono(Void.class)
+                .timeout(timeout);
+    }
+
+    /**
+     * The values of the variables of the process instance, by name
+     */
+    public Mono<Map<String, Object>> getVariables(String token,
+                                                  String processInstanceId) {
+        return get(token,
+                   "/v1/process-instances/{processInstanceId}/variables",
+                   processInstanceId)
+                .map(resources -> {
+                    Map<String, Object> variables = new LinkedHashMap<>();
+                    for (JsonNode variable : embeddedNodes(resources)) {
+                        variables.put(variable.path("name").asText(),
+                                      objectMapper.convertValue(variable.get("value"),
+                                                                Object.class));
+                    }
+                    return variables;
+                });
+    }
+
+    private WebClient.ResponseSpec post(String token,
+                                        String uri,
+                                        Object body) {
+        WebClient.RequestBodySpec request = webClient.post()
+                .uri(uri)
+                .header(HttpHeaders.AUTHORIZATION,
+                        "Bearer " + token);
+        if (body == null) {
+            return request.retrieve();
+        }
+        return request
+                .contentType(MediaType.APPLICATION_JSON)
+                .syncBody(body)
+                .retrieve();
+    }
+
+    private Mono<JsonNode> get(String token,
+                               String uri,
+                               String uriVariable) {
+        return webClient.get()
+                .uri(uri,
+                     uriVariable)
+                .header(HttpHeaders.AUTHORIZATION,
+                        "Bearer " + token)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(timeout);
+    }
+
+    private <T> List<T> embedded(JsonNode resources,
+                                 Class<? extends T> type) {
+        List<T> elements = new ArrayList<>();
+        for (JsonNode element : embeddedNodes(resources)) {
+            elements.add(objectMapper.convertValue(element,
+                                                   type));
+        }
+        return elements;
+    }
+
+    /**
+     * The elements of the single collection embedded in a HAL resources response
+     */
+    private static List<JsonNode> embeddedNodes(JsonNode resources) {
+        List<JsonNode> elements = new ArrayList<>();
+        Iterator<JsonNode> collections = resources.path("_embedded").elements();
+        if (collections.hasNext()) {
+            collections.next().forEach(elements::add);
+        }
+        return elements;
+    }
+}
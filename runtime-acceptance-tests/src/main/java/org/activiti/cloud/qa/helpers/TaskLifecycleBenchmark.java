@@ -0,0 +1,232 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.cloud.api.task.model.CloudTask;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+import org.activiti.cloud.qa.rest.BulkDirtyContextHandler;
+import org.activiti.cloud.qa.tokens.TokenCache;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs task lifecycles (create or start, claim, save, complete) for a pool of users,
+ * each from a number of concurrent sessions, through the {@link ReactiveRuntimeClient}.
+ * <p>
+ * Every operation is recorded in the histogram task.&lt;benchmark&gt;.&lt;operation&gt;
+ * and every whole lifecycle in task.&lt;benchmark&gt;.lifecycle. The result counts
+ * completed tasks, so its throughput is the completed task rate.
+ * <p>
+ * Created tasks and started process instances are marked dirty with the {@link BulkDirtyContextHandler}
+ * until their lifecycle completes, and every request takes the cached token of its user once the
+ * given one is about to expire.
+ */
+public class TaskLifecycleBenchmark {
+
+    public static final String HISTOGRAM_PREFIX = "task.";
+
+    private static final int MAX_RECORDED_FAILURES = 10;
+
+    private static final Map<String, Object> SAVED_VARIABLES = Collections.singletonMap("benchmarkVariable",
+                                                                                        "saved");
+
+    private final ReactiveRuntimeClient client;
+
+    private final Map<String, String> tokensByUser;
+
+    private final int lifecyclesPerUser;
+
+    private final int sessionsPerUser;
+
+    public TaskLifecycleBenchmark(ReactiveRuntimeClient client,
+                                  Map<String, String> tokensByUser,
+                                  int lifecyclesPerUser,
+                                  int sessionsPerUser) {
+        if (tokensByUser.isEmpty() || lifecyclesPerUser < 0 || sessionsPerUser < 1) {
+            throw new IllegalArgumentException("Benchmark needs at least one user and one session per user");
+        }
+        this.client = client;
+        this.tokensByUser = tokensByUser;
+        this.lifecyclesPerUser = lifecyclesPerUser;
+        this.sessionsPerUser = sessionsPerUser;
+    }
+
+    /**
+     * Lifecycles of standalone tasks created by each user
+     */
+    public LoadResult runStandaloneTasks() {
+        String benchmark = "standalone";
+        return run(benchmark,
+                   token -> timed(benchmark,
+                                  "create",
+                                  Mono.defer(() -> client.createTask(TokenCache.current(token),
+                                                                     TaskPayloadBuilder
+                                                                             .create()
+                                                                             .withName("benchmark-task")
+                                                                             .withDescription("task lifecycle benchmark")
+                                                                             .build())))
+                           .doOnNext(task -> BulkDirtyContextHandler.dirty(task.getId(),
+                                                                           token,
+                                                                           ownerToken -> client.deleteTask(ownerToken,
+                                                                                                           task.getId())
+                                                                                   .block()))
+                           .flatMap(task -> completeTask(benchmark,
+                                                         token,
+                                                         task)
+                                   .doOnNext(completedTask -> BulkDirtyContextHandler.deleted(task.getId())))
+                           .map(completedTask -> 1L));
+    }
+
+    /**
+     * Lifecycles of the tasks of process instances started by each user, each one
+     * completing tasks until the process instance completes
+     */
+    public LoadResult runProcessTasks(String processDefinitionKey) {
+        return run(processDefinitionKey,
+                   token -> timed(processDefinitionKey,
+                                  "start",
+                                  Mono.defer(() -> client.startProcess(TokenCache.current(token),
+                                                                       ProcessPayloadBuilder
+                                                                               .start()
+                                                                               .withProcessDefinitionKey(processDefinitionKey)
+                                                                               .build())))
+                           .doOnNext(processInstance -> BulkDirtyContextHandler.dirty(processInstance.getId(),
+                                                                                      token,
+                                                                                      ownerToken -> client.deleteProcessInstance(ownerToken,
+                                                                                                                                 processInstance.getId())
+                                                                                              .block()))
+                           .flatMap(processInstance -> completeAllTasks(processDefinitionKey,
+                                                                        token,
+                                                                        processInstance.getId())
+                                   .doOnNext(completedTasks -> BulkDirtyContextHandler.deleted(processInstance.getId()))));
+    }
+
+    private LoadResult run(String benchmark,
+                           Function<String, Mono<Long>> lifecycle) {
+        String lifecycleHistogram = histogramName(benchmark,
+                                                  "lifecycle");
+        AtomicLong completedTasks = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        List<String> failures = new CopyOnWriteArrayList<>();
+
+        long startNanos = System.nanoTime();
+        Flux.fromIterable(tokensByUser.values())
+                .flatMap(token -> Flux.range(0,
+                                             lifecyclesPerUser)
+                                 .flatMap(index -> timed(benchmark,
+                                                         "lifecycle",
+                                                         lifecycle.apply(token)
+                                                                 .doOnNext(completedTasks::addAndGet))
+                                                  .onErrorResume(failure -> {
+                                                      errors.incrementAndGet();
+                                                      if (failures.size() < MAX_RECORDED_FAILURES) {
+                                                          failures.add(failure.toString());
+                                                      }
+                                                      return Mono.empty();
+                                                  }),
+                                          sessionsPerUser),
+                         tokensByUser.size())
+                .blockLast();
+
+        return new LoadResult(lifecycleHistogram,
+                              completedTasks.get(),
+                              errors.get(),
+                              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                              LatencyHistograms.summary(lifecycleHistogram),
+                              failures);
+    }
+
+    /**
+     * Completes the tasks of the process instance, and the ones their completion creates, counting them,
+     * and fails if the process instance is still running once no task is left
+     */
+    private Mono<Long> completeAllTasks(String benchmark,
+                                        String token,
+                                        String processInstanceId) {
+        return Mono.defer(() -> client.getTasks(TokenCache.current(token),
+                                                processInstanceId))
+                .flatMap(tasks -> tasks.isEmpty() ?
+                        client.getProcessInstance(TokenCache.current(token),
+                                                  processInstanceId)
+                                .flatMap(running -> Mono.<Long>error(new IllegalStateException("Process instance " + processInstanceId
+                                                                                                       + " has no task left but is "
+                                                                                                       + running.getStatus())))
+                                .defaultIfEmpty(0L) :
+                        Flux.fromIterable(tasks)
+                                .concatMap(task -> completeTask(benchmark,
+                                                                token,
+                                                                task))
+                                .count()
+                                .flatMap(completed -> completeAllTasks(benchmark,
+                                                                       token,
+                                                                       processInstanceId)
+                                        .map(following -> completed + following)));
+    }
+
+    private Mono<CloudTask> completeTask(String benchmark,
+                                         String token,
+                                         CloudTask task) {
+        Mono<?> claim = task.getAssignee() == null ?
+                timed(benchmark,
+                      "claim",
+                      Mono.defer(() -> client.claimTask(TokenCache.current(token),
+                                                        task.getId()))) :
+                Mono.empty();
+        return claim
+                .then(timed(benchmark,
+                            "save",
+                            Mono.defer(() -> client.saveTask(TokenCache.current(token),
+                                                             task.getId(),
+                                                             SAVED_VARIABLES))))
+                .then(timed(benchmark,
+                            "complete",
+                            Mono.defer(() -> client.completeTask(TokenCache.current(token),
+                                                                 task.getId(),
+                                                                 Collections.emptyMap()))));
+    }
+
+    private static <T> Mono<T> timed(String benchmark,
+                                     String operation,
+                                     Mono<T> call) {
+        String histogramName = histogramName(benchmark,
+                                             operation);
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return call.doOnSuccess(result -> LatencyHistograms.recordNanos(histogramName,
+                                                                            System.nanoTime() - startNanos));
+        });
+    }
+
+    public static String histogramPrefix(String benchmark) {
+        return HISTOGRAM_PREFIX + benchmark + ".";
+    }
+
+    private static String histogramName(String benchmark,
+                                        String operation) {
+        return histogramPrefix(benchmark) + operation;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.activiti.api.process.model.BPMNTimer;
+import org.activiti.api.process.model.events.BPMNTimerEvent;
+import org.activiti.api.process.model.payloads.TimerPayload;
+import org.activiti.cloud.api.model.shared.events.CloudRuntimeEvent;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+
+/**
+ * Fire time drift of the timers of many process instances, from the audit events:
+ * the timestamp of the TIMER_FIRED event minus the due date of the timer.
+ * <p>
+ * Drifts are recorded in the histogram timers.drift.&lt;processDefinitionKey&gt;.&lt;timers&gt;,
+ * so that runs with different numbers of due timers can be compared.
+ */
+public class TimerDrift {
+
+    public static final String HISTOGRAM_PREFIX = "timers.drift.";
+
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    private final String processDefinitionKey;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private int started;
+
+    public TimerDrift(String processDefinitionKey) {
+        this.processDefinitionKey = processDefinitionKey;
+    }
+
+    public void started(String processInstanceId) {
+        pending.add(processInstanceId);
+    }
+
+    /**
+     * Polls the timer events of the pending process instances until all timers fired or the timeout expires
+     */
+    public TimerDriftResult awaitFired(Function<String, Collection<CloudRuntimeEvent>> timerEventsOf,
+                                       Duration timeout) {
+        started = pending.size();
+        String histogramName = histogramName();
+        AtomicInteger measured = new AtomicInteger();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!pending.isEmpty() && System.nanoTime() < deadline) {
+            for (String processInstanceId : new ArrayList<>(pending)) {
+                Collection<CloudRuntimeEvent> events = timerEventsOf.apply(processInstanceId);
+                Optional<CloudRuntimeEvent> fired = event(events,
+                                                          BPMNTimerEvent.TimerEvents.TIMER_FIRED);
+                if (fired.isPresent()) {
+                    pending.remove(processInstanceId);
+                    dueDate(events).ifPresent(dueDate -> {
+                        LatencyHistograms.recordMillis(histogramName,
+                                                       fired.get().getTimestamp() - dueDate.getTime());
+                        measured.incrementAndGet();
+                    });
+                }
+            }
+            if (!pending.isEmpty()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(POLL_INTERVAL_MILLIS));
+            }
+        }
+        return new TimerDriftResult(processDefinitionKey,
+                                    started,
+                                    started - pending.size(),
+                                    measured.get(),
+                                    LatencyHistograms.summary(histogramName));
+    }
+
+    public String histogramName() {
+        return HISTOGRAM_PREFIX + processDefinitionKey + "." + started;
+    }
+
+    private static Optional<CloudRuntimeEvent> event(Collection<CloudRuntimeEvent> events,
+                                                     BPMNTimerEvent.TimerEvents eventType) {
+        return events.stream()
+                .filter(event -> eventType.equals(event.getEventType()))
+                .findFirst();
+    }
+
+    /**
+     * The due date of the timer, as scheduled, or as fired when the scheduled event is missing
+     */
+    private static Optional<Date> dueDate(Collection<CloudRuntimeEvent> events) {
+        Optional<CloudRuntimeEvent> timerEvent = event(events,
+                                                       BPMNTimerEvent.TimerEvents.TIMER_SCHEDULED);
+        if (!timerEvent.isPresent()) {
+            timerEvent = event(events,
+                               BPMNTimerEvent.TimerEvents.TIMER_FIRED);
+        }
+        return timerEvent
+                .map(CloudRuntimeEvent::getEntity)
+                .filter(BPMNTimer.class::isInstance)
+                .map(BPMNTimer.class::cast)
+                .map(BPMNTimer::getTimerPayload)
+                .map(TimerPayload::getDuedate);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.helpers;
+
+import org.activiti.cloud.qa.metrics.LatencySummary;
+
+/**
+ * Outcome of a {@link TimerDrift} measurement
+ */
+public class TimerDriftResult {
+
+    private final String processDefinitionKey;
+
+    private final int timers;
+
+    private final int fired;
+
+    private final int measured;
+
+    private final LatencySummary drift;
+
+    public TimerDriftResult(String processDefinitionKey,
+                            int timers,
+                            int fired,
+                            int measured,
+                            LatencySummary drift) {
+        this.processDefinitionKey = processDefinitionKey;
+        this.timers = timers;
+        this.fired = fired;
+        this.measured = measured;
+        this.drift = drift;
+    }
+
+    public String getProcessDefinitionKey() {
+        return processDefinitionKey;
+    }
+
+    public int getTimers() {
+        return timers;
+    }
+
+    public int getFired() {
+        return fired;
+    }
+
+    /**
+     * Fired timers having a due date in their audit events
+     */
+    public int getMeasured() {
+        return measured;
+    }
+
+    public LatencySummary getDrift() {
+        return drift;
+    }
+}
@@ -1,13 +1,206 @@
 package org.activiti.cloud.qa.helpers;
 
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+
+/**
+ * Generates variable payloads of a given count, size and type mix.
+ * <p>
+ * Strings and nested JSON values are sized to roughly the requested number of bytes
+ * once serialized, numbers and dates keep their natural size. Dates are generated as
+ * yyyy-MM-dd strings, the way the process variable mappings expect them.
+ * Each call to {@link #generate(String)} keeps the variable names and draws new values,
+ * so a second call produces an update of the first one.
+ */
 public class VariableGenerator {
 
+    public static final String HISTOGRAM_PREFIX = "variables.";
+
     public static Map<String, Object> variables = new HashMap<String, Object>() {{
         put("var1", "one");
         put("var2", 2);
     }};
 
+    public enum VariableType {
+        STRING,
+        NUMBER,
+        DATE,
+        JSON
+    }
+
+    private static final String DATE_FORMAT = "yyyy-MM-dd";
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    private static final int JSON_ITEM_VALUE_LENGTH = 64;
+
+    /**
+     * Approximate serialized size of one item of a generated JSON value
+     */
+    private static final int JSON_ITEM_BYTES = 128;
+
+    private final int count;
+
+    private final int sizeBytes;
+
+    private final List<VariableType> typeMix;
+
+    public VariableGenerator(int count,
+                             int sizeBytes,
+                             List<VariableType> typeMix) {
+        if (count < 1 || sizeBytes < 1 || typeMix.isEmpty()) {
+            throw new IllegalArgumentException("Variable payload needs at least one variable of one type and a positive size");
+        }
+        this.count = count;
+        this.sizeBytes = sizeBytes;
+        this.typeMix = typeMix;
+    }
+
+    /**
+     * @param typeMix comma separated types, e.g. "string,number,date,json";
+     *                the variables cycle through the types in this order
+     */
+    public static VariableGenerator of(int count,
+                                       int sizeBytes,
+                                       String typeMix) {
+        return new VariableGenerator(count,
+                                     sizeBytes,
+                                     Arrays.stream(typeMix.split(","))
+                                             .map(String::trim)
+                                             .filter(type -> !type.isEmpty())
+                                             .map(type -> VariableType.valueOf(type.toUpperCase()))
+                                             .collect(Collectors.toList()));
+    }
+
+    public Map<String, Object> generate(String namePrefix) {
+        Map<String, Object> generated = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            VariableType type = typeMix.get(i % typeMix.size());
+            generated.put(namePrefix + "_" + type.name().toLowerCase() + "_" + i,
+                          value(type));
+        }
+        return generated;
+    }
+
+    public Object value(VariableType type) {
+        switch (type) {
+            case STRING:
+                return randomString(sizeBytes);
+            case NUMBER:
+                return ThreadLocalRandom.current().nextInt();
+            case DATE:
+                return randomDate();
+            case JSON:
+                return randomJson();
+            default:
+                throw new IllegalArgumentException("Unsupported variable type " + type);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Label of the payload size, e.g. 64KB
+     */
+    public String sizeBucket() {
+        return sizeBytes < 1024 ? sizeBytes + "B" : sizeBytes / 1024 + "KB";
+    }
+
+    /**
+     * Name of the histogram of an operation on the given service, bucketed by the number
+     * of variables carried by each request and the size of each variable,
+     * e.g. variables.create.runtime-bundle.10x64KB
+     */
+    public String histogramName(String operation,
+                                String service,
+                                int variablesPerRequest) {
+        return HISTOGRAM_PREFIX + operation + "." + service + "." + variablesPerRequest + "x" + sizeBucket();
+    }
+
+    public String histogramName(String operation,
+                                String service) {
+        return histogramName(operation,
+                             service,
+                             count);
+    }
+
+    /**
+     * Runs the request, records its latency under the given histogram and returns its result
+     */
+    public static <T> T timed(String histogramName,
+                              Supplier<T> request) {
+        long startNanos = System.nanoTime();
+        T result = request.get();
+        LatencyHistograms.recordNanos(histogramName,
+                                      System.nanoTime() - startNanos);
+        return result;
+    }
+
+    /**
+     * Runs the request and records its latency under the given histogram
+     */
+    public static void record(String histogramName,
+                              Runnable request) {
+        long startNanos = System.nanoTime();
+        request.run();
+        LatencyHistograms.recordNanos(histogramName,
+                                      System.nanoTime() - startNanos);
+    }
+
+    private Map<String, Object> randomJson() {
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, sizeBytes / JSON_ITEM_BYTES); i++) {
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("amount", ThreadLocalRandom.current().nextInt(100000));
+            detail.put("tags", Arrays.asList(randomString(8),
+                                             randomString(8)));
+
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("index", i);
+            item.put("value", randomString(JSON_ITEM_VALUE_LENGTH));
+            item.put("detail", detail);
+            items.add(item);
+        }
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("reference", randomString(16));
+        json.put("createdAt", randomDate());
+        json.put("items", items);
+        return json;
+    }
+
+    private static String randomString(int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        return new String(chars);
+    }
+
+    private static String randomDate() {
+        SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(System.currentTimeMillis()
+                                              - TimeUnit.DAYS.toMillis(ThreadLocalRandom.current().nextInt(3650))));
+    }
 }
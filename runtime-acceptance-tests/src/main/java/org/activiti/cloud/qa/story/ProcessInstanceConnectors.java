@@ -17,9 +17,11 @@
 package org.activiti.cloud.qa.story;
 
 import static org.activiti.api.process.model.events.IntegrationEvent.IntegrationEvents.INTEGRATION_ERROR_RECEIVED;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.AUDIT;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.RUNTIME_BUNDLE;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.await;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
-import static org.awaitility.Awaitility.await;
 
 import java.util.Collection;
 
@@ -87,7 +89,7 @@ public class ProcessInstanceConnectors {
 
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
 
-        await().untilAsserted(
+        await(RUNTIME_BUNDLE, "connector-tasks").untilAsserted(
                 () ->
                 {
                     assertThat(processInstance).isNotNull();
@@ -107,7 +109,7 @@ public class ProcessInstanceConnectors {
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
 
         assertThat(processInstanceId).isNotNull();
-        await().untilAsserted(() -> {
+        await(RUNTIME_BUNDLE, "connector-variables").untilAsserted(() -> {
             Resources<CloudVariableInstance> processVariables = processVariablesRuntimeBundleSteps.getVariables(processInstanceId);
             assertThat(processVariables.getContent()).isNotNull();
             assertThat(processVariables.getContent())
@@ -133,7 +135,7 @@ public class ProcessInstanceConnectors {
 
         String processId = Serenity.sessionVariableCalled("processInstanceId");
 
-        await().untilAsserted(() -> {
+        await(AUDIT, "integration-events").untilAsserted(() -> {
             Collection<CloudRuntimeEvent> events = auditSteps.getEventsByProcessInstanceId(processId);
 
             assertThat(events)
@@ -17,10 +17,12 @@
 package org.activiti.cloud.qa.story;
 
 import static org.activiti.api.process.model.events.BPMNErrorReceivedEvent.ErrorEvents.ERROR_RECEIVED;
+import static org.activiti.cloud.qa.helpers.EngineEventWaits.afterProcessInstanceEvent;
 import static org.activiti.cloud.qa.helpers.ProcessDefinitionRegistry.processDefinitionKeyMatcher;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.AUDIT;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.RUNTIME_BUNDLE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
-import static org.awaitility.Awaitility.await;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -40,6 +42,7 @@ import org.activiti.cloud.acc.core.steps.runtime.ProcessRuntimeBundleSteps;
 import org.activiti.cloud.api.model.shared.events.CloudRuntimeEvent;
 import org.activiti.cloud.api.process.model.events.CloudBPMNErrorReceivedEvent;
 import org.activiti.cloud.api.task.model.CloudTask;
+import org.activiti.cloud.qa.helpers.EngineEventWaits;
 import org.jbehave.core.annotations.Then;
 import org.jbehave.core.annotations.When;
 
@@ -65,6 +68,7 @@ public class ProcessInstanceErrorEvents {
     
     @When("the user starts a process with error events called $processName")
     public void startProcess(String processName) throws IOException, InterruptedException {        
+        EngineEventWaits.commandSent();
         processInstance = processRuntimeBundleSteps.startProcess(processDefinitionKeyMatcher(processName),false);
         Serenity.setSessionVariable("processInstanceId").to(processInstance.getId());
     }
@@ -75,7 +79,10 @@ public class ProcessInstanceErrorEvents {
         
         String processId = Serenity.sessionVariableCalled("processInstanceId");
         
-        await().untilAsserted(() -> {
+        afterProcessInstanceEvent(RUNTIME_BUNDLE,
+                                  "error-task",
+                                  processId,
+                                  "TASK_CREATED").untilAsserted(() -> {
             Collection<CloudTask> tasks = processRuntimeBundleSteps.getTaskByProcessInstanceId(processId);
     
             assertThat(tasks)
@@ -100,7 +107,10 @@ public class ProcessInstanceErrorEvents {
        
         String processId = Serenity.sessionVariableCalled("processInstanceId");
         
-        await().untilAsserted(() -> {
+        afterProcessInstanceEvent(AUDIT,
+                                  "error-events",
+                                  processId,
+                                  ERROR_RECEIVED.name()).untilAsserted(() -> {
             Collection<CloudRuntimeEvent> events = auditSteps.getEventsByProcessInstanceId(processId); 
             
             assertThat(events)
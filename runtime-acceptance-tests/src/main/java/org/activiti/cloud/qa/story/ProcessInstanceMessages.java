@@ -18,14 +18,22 @@ package org.activiti.cloud.qa.story;
 
 import static org.activiti.cloud.acc.core.assertions.RestErrorAssert.assertThatRestInternalServerErrorIsThrownBy;
 import static org.activiti.cloud.acc.core.assertions.RestErrorAssert.assertThatRestNotFoundErrorIsThrownBy;
+import static org.activiti.cloud.qa.helpers.EngineEventWaits.afterBusinessKeyEvent;
+import static org.activiti.cloud.qa.helpers.EngineEventWaits.afterProcessInstanceEvent;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.AUDIT;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.QUERY;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.assertj.core.api.Assertions.tuple;
-import static org.awaitility.Awaitility.await;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.activiti.api.process.model.ProcessInstance;
@@ -34,18 +42,29 @@ import org.activiti.api.process.model.builders.MessagePayloadBuilder;
 import org.activiti.api.process.model.events.BPMNMessageEvent;
 import org.activiti.api.process.model.payloads.ReceiveMessagePayload;
 import org.activiti.api.process.model.payloads.StartMessagePayload;
+import org.activiti.cloud.acc.core.rest.feign.EnableRuntimeFeignContext;
 import org.activiti.cloud.acc.core.steps.audit.AuditSteps;
 import org.activiti.cloud.acc.core.steps.query.ProcessQuerySteps;
 import org.activiti.cloud.acc.core.steps.runtime.ProcessRuntimeBundleSteps;
+import org.activiti.cloud.acc.shared.steps.AuthenticationSteps;
 import org.activiti.cloud.api.model.shared.events.CloudRuntimeEvent;
 import org.activiti.cloud.api.process.model.CloudProcessInstance;
+import org.activiti.cloud.qa.helpers.EngineEventWaits;
+import org.activiti.cloud.qa.helpers.FixedRateLoad;
+import org.activiti.cloud.qa.helpers.LoadResult;
+import org.activiti.cloud.qa.helpers.LoadSessions;
+import org.activiti.cloud.qa.helpers.PerformanceReport;
+import org.activiti.cloud.qa.helpers.ReactiveRuntimeClient;
 import org.jbehave.core.annotations.Given;
 import org.jbehave.core.annotations.Then;
 import org.jbehave.core.annotations.When;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import net.serenitybdd.core.Serenity;
 import net.thucydides.core.annotations.Steps;
 
+@EnableRuntimeFeignContext
 public class ProcessInstanceMessages {
 
     @Steps
@@ -56,9 +75,18 @@ public class ProcessInstanceMessages {
     
     @Steps
     private AuditSteps auditSteps;
+
+    @Steps
+    private AuthenticationSteps authenticationSteps;
+
+    @Value("${runtime.bundle.url}")
+    private String runtimeBundleUrl;
     
     private ProcessInstance processInstance;
 
+    private List<String> correlationKeys = new CopyOnWriteArrayList<>();
+
+    private LoadResult messageLoadResult;
     
     @Given("messages: generated unique sessionVariable called $variableName")
     public void generateUniqueBusinessId(String variableName) {
@@ -85,6 +113,7 @@ public class ProcessInstanceMessages {
                                                            .withBusinessKey(variableValue)
                                                            .build();
 
+        EngineEventWaits.commandSent();
         processInstance = processRuntimeBundleSteps.message(payload);
         
         Serenity.setSessionVariable("processInstanceId").to(processInstance.getId());
@@ -97,6 +126,7 @@ public class ProcessInstanceMessages {
                                                              .withCorrelationKey(variableValue)
                                                              .build();
 
+        EngineEventWaits.commandSent();
         processRuntimeBundleSteps.message(payload);
     }
 
@@ -130,8 +160,11 @@ public class ProcessInstanceMessages {
         
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
         
-        await()
-               .atMost(timeoutSeconds, TimeUnit.SECONDS)
+        afterProcessInstanceEvent(Duration.ofSeconds(timeoutSeconds),
+                                  AUDIT,
+                                  "message-events",
+                                  processInstanceId,
+                                  eventType)
                .untilAsserted(() -> {
                    Collection<CloudRuntimeEvent> events = auditSteps.getEventsByProcessInstanceIdAndEventType(processInstanceId,
                                                                                                               eventType);
@@ -161,8 +194,11 @@ public class ProcessInstanceMessages {
         
         String businessKey = Serenity.sessionVariableCalled(sessionVariable);
         
-        await()
-               .atMost(timeoutSeconds, TimeUnit.SECONDS)
+        afterBusinessKeyEvent(Duration.ofSeconds(timeoutSeconds),
+                              QUERY,
+                              "message-process-status",
+                              businessKey,
+                              processEventType(ProcessInstanceStatus.valueOf(status)))
                .untilAsserted(() -> {
                    Collection<CloudProcessInstance> result = processQuerySteps.getProcessInstancesByProcessDefinitionKey(processDefinitionKey)
                                                                     .getContent()
@@ -185,8 +221,11 @@ public class ProcessInstanceMessages {
         
         String businessKey = Serenity.sessionVariableCalled(sessionVariable);
         
-        await()
-               .atMost(timeoutSeconds, TimeUnit.SECONDS)
+        afterBusinessKeyEvent(Duration.ofSeconds(timeoutSeconds),
+                              AUDIT,
+                              "business-key-message-events",
+                              businessKey,
+                              eventType)
                .untilAsserted(() -> {
                    Collection<CloudRuntimeEvent> events = auditSteps.getEventsByProcessDefinitionKey(processDefinitionKey)
                                                                     .stream()
@@ -200,6 +239,121 @@ public class ProcessInstanceMessages {
     }
     
     
+    /**
+     * Each user of the message loads is a session of its own of the authenticated user
+     */
+    @When("messages: $users users start $instances processes with a start message named $messageName and unique business keys at $rate per second")
+    public void startMessagesAtFixedRate(int users,
+                                         int instances,
+                                         String messageName,
+                                         double rate) throws InterruptedException {
+        ReactiveRuntimeClient client = ReactiveRuntimeClient.of(runtimeBundleUrl);
+        String runId = UUID.randomUUID().toString();
+        AtomicInteger nextInstance = new AtomicInteger();
+        correlationKeys = new CopyOnWriteArrayList<>();
+
+        messageLoadResult = runMessageLoad("Start message load " + messageName,
+                                           new FixedRateLoad(LoadSessions.authenticate(authenticationSteps,
+                                                                                       users),
+                                                             instances,
+                                                             rate),
+                                           "messages.start." + messageName,
+                                           token -> {
+                                               String businessKey = "message-load-" + runId + "-" + nextInstance.getAndIncrement();
+                                               CloudProcessInstance startedInstance = client.startMessage(token,
+                                                                                                          MessagePayloadBuilder.start(messageName)
+                                                                                                                  .withBusinessKey(businessKey)
+                                                                                                                  .build())
+                                                       .block();
+                                               assertThat(startedInstance).isNotNull();
+                                               client.markDirty(token,
+                                                                startedInstance.getId());
+                                               correlationKeys.add(businessKey);
+                                           });
+    }
+
+    @When("messages: $users users send a message named $messageName to each started process at $rate per second")
+    public void receiveMessagesAtFixedRate(int users,
+                                           String messageName,
+                                           double rate) throws InterruptedException {
+        ReactiveRuntimeClient client = ReactiveRuntimeClient.of(runtimeBundleUrl);
+        List<String> keys = correlationKeys;
+        AtomicInteger nextKey = new AtomicInteger();
+
+        messageLoadResult = runMessageLoad("Message correlation load " + messageName,
+                                           new FixedRateLoad(LoadSessions.authenticate(authenticationSteps,
+                                                                                       users),
+                                                             keys.size(),
+                                                             rate),
+                                           "messages.correlation." + messageName,
+                                           token -> client.receiveMessage(token,
+                                                                          MessagePayloadBuilder.receive(messageName)
+                                                                                  .withCorrelationKey(keys.get(nextKey.getAndIncrement()))
+                                                                                  .build())
+                                                   .block());
+    }
+
+    @When("messages: $users users start a process with a start message named $messageName for each started business key at $rate per second")
+    public void startDuplicateMessagesAtFixedRate(int users,
+                                                  String messageName,
+                                                  double rate) throws InterruptedException {
+        ReactiveRuntimeClient client = ReactiveRuntimeClient.of(runtimeBundleUrl);
+        List<String> keys = correlationKeys;
+        AtomicInteger nextKey = new AtomicInteger();
+
+        messageLoadResult = runMessageLoad("Duplicate correlation load " + messageName,
+                                           new FixedRateLoad(LoadSessions.authenticate(authenticationSteps,
+                                                                                       users),
+                                                             keys.size(),
+                                                             rate),
+                                           "messages.duplicate." + messageName,
+                                           token -> {
+                                               StartMessagePayload payload = MessagePayloadBuilder.start(messageName)
+                                                       .withBusinessKey(keys.get(nextKey.getAndIncrement()))
+                                                       .build();
+                                               Throwable failure = catchThrowable(() -> client.startMessage(token,
+                                                                                                           payload)
+                                                       .block());
+                                               assertThat(failure).isInstanceOf(WebClientResponseException.InternalServerError.class);
+                                               assertThat(((WebClientResponseException) failure).getResponseBodyAsString())
+                                                       .contains("Duplicate message subscription");
+                                           });
+    }
+
+    @Then("messages: all the messages are handled")
+    public void verifyAllMessagesHandled() {
+        assertThat(messageLoadResult.getFailures()).isEmpty();
+        assertThat(messageLoadResult.getErrors()).isZero();
+    }
+
+    @Then("messages: the error rate is below $percent percent")
+    public void verifyMessageErrorRate(double percent) {
+        long requests = messageLoadResult.getCompleted() + messageLoadResult.getErrors();
+        assertThat(requests).isPositive();
+        assertThat(messageLoadResult.getErrors() * 100.0 / requests).isLessThan(percent);
+    }
+
+    @Then("messages: the latency at percentile $percentile is below $millis milliseconds")
+    public void verifyMessageLatency(double percentile,
+                                     long millis) {
+        assertThat(messageLoadResult.getLatency().percentileMillis(percentile)).isLessThan(millis);
+    }
+
+    private LoadResult runMessageLoad(String title,
+                                      FixedRateLoad load,
+                                      String name,
+                                      Consumer<String> request) throws InterruptedException {
+        LoadResult loadResult = load.run(name,
+                                         request);
+        PerformanceReport.record(title,
+                                 loadResult);
+        return loadResult;
+    }
+
+    private String processEventType(ProcessInstanceStatus status) {
+        return status == ProcessInstanceStatus.RUNNING ? "PROCESS_STARTED" : "PROCESS_" + status.name();
+    }
+
     private long sessionTimeoutSeconds() {
         long timeoutSeconds = Serenity.sessionVariableCalled("timeoutSeconds");
         
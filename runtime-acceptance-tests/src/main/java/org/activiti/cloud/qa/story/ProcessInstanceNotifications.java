@@ -21,33 +21,52 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.activiti.api.process.model.ProcessInstance;
 import org.activiti.api.process.model.builders.MessagePayloadBuilder;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
 import org.activiti.api.process.model.payloads.ReceiveMessagePayload;
 import org.activiti.api.process.model.payloads.StartMessagePayload;
+import org.activiti.cloud.acc.core.rest.feign.EnableRuntimeFeignContext;
 import org.activiti.cloud.acc.core.steps.notifications.NotificationsSteps;
 import org.activiti.cloud.acc.core.steps.query.ProcessQuerySteps;
 import org.activiti.cloud.acc.core.steps.runtime.ProcessRuntimeBundleSteps;
 import org.activiti.cloud.acc.shared.model.AuthToken;
 import org.activiti.cloud.acc.shared.rest.TokenHolder;
+import org.activiti.cloud.acc.shared.steps.AuthenticationSteps;
+import org.activiti.cloud.api.process.model.CloudProcessInstance;
+import org.activiti.cloud.qa.helpers.EngineEventFrames;
+import org.activiti.cloud.qa.helpers.FanOutResult;
+import org.activiti.cloud.qa.helpers.FixedRateLoad;
+import org.activiti.cloud.qa.helpers.LoadResult;
+import org.activiti.cloud.qa.helpers.LoadSessions;
+import org.activiti.cloud.qa.helpers.NotificationFanOut;
+import org.activiti.cloud.qa.helpers.NotificationLatency;
+import org.activiti.cloud.qa.helpers.PerformanceReport;
+import org.activiti.cloud.qa.helpers.ReactiveRuntimeClient;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+import org.jbehave.core.annotations.AfterScenario;
 import org.jbehave.core.annotations.Given;
 import org.jbehave.core.annotations.Then;
 import org.jbehave.core.annotations.When;
 import org.reactivestreams.Subscription;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import net.serenitybdd.core.Serenity;
 import net.thucydides.core.annotations.Steps;
 import reactor.core.publisher.Mono;
@@ -55,6 +74,7 @@ import reactor.core.publisher.ReplayProcessor;
 import reactor.test.StepVerifier;
 import reactor.test.StepVerifier.Step;
 
+@EnableRuntimeFeignContext
 public class ProcessInstanceNotifications {
 
     @Steps
@@ -65,15 +85,24 @@ public class ProcessInstanceNotifications {
     
     @Steps
     private NotificationsSteps notificationsSteps;
-    
-    @Autowired
-    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Steps
+    private AuthenticationSteps authenticationSteps;
+
+    @Value("${runtime.bundle.url}")
+    private String runtimeBundleUrl;
     
     private AtomicReference<ProcessInstance> processInstanceRef;
     private AtomicReference<Subscription> subscriptionRef;
     
     private Step<String> stepVerifier;
 
+    private NotificationFanOut fanOut;
+
+    private String fanOutHistogramName;
+
+    private NotificationLatency notificationLatency = new NotificationLatency();
+
     @When("notifications: services are started")
     public void checkServicesStatus() {
         processRuntimeBundleSteps.checkServicesHealth();
@@ -134,6 +163,8 @@ public class ProcessInstanceNotifications {
         String processDefinitionKey = processDefinitionKeyMatcher(processName);
         String businessKey = sessionVariableCalled("businessKey", String.class).orElse("businessKey");
         
+        notificationLatency.commandSent("startProcess",
+                                        businessKey);
         processInstanceRef =  new AtomicReference<>(processRuntimeBundleSteps.startProcess(processDefinitionKey, 
                                                                                            true, 
                                                                                            businessKey));
@@ -150,6 +181,8 @@ public class ProcessInstanceNotifications {
                                                            .withBusinessKey(businessKey)
                                                            .build();
          
+        notificationLatency.commandSent("startMessage",
+                                        businessKey);
         processInstanceRef.set(processRuntimeBundleSteps.message(payload));
     }
 
@@ -175,6 +208,9 @@ public class ProcessInstanceNotifications {
                                                              .withCorrelationKey(variableValue)
                                                              .build();
         
+        notificationLatency.commandSent("receiveMessage",
+                                        variableValue,
+                                        processInstanceRef.get() == null ? null : processInstanceRef.get().getId());
         processRuntimeBundleSteps.message(payload);
     }    
     
@@ -206,15 +242,26 @@ public class ProcessInstanceNotifications {
 
         stepVerifier.expectComplete()
                     .verify(Duration.ofSeconds(sessionTimeout));
+
+        PerformanceReport.attach("Notification latency",
+                                 notificationLatency.getMeasurements());
+    }
+
+    @Then("notifications: the $eventType notification latency at percentile $percentile is below $millis milliseconds")
+    public void verifyNotificationLatency(String eventType,
+                                          double percentile,
+                                          long millis) {
+        assertThat(notificationLatency.count(eventType)).as("should measure the latency of " + eventType + " notifications")
+                                                        .isPositive();
+        assertThat(notificationLatency.percentileMillis(eventType,
+                                                        percentile)).isLessThan(millis);
     }
     
     @Then("notifications: the payload with $eventTypes notifications is expected with process definition key value $processDefinitionKey")
     public void expectPayloadWithEventTypesNotification(String eventTypes,
                                                         String processDefinitionKey) throws Exception {
         
-        String messagePayload = messagePayload(eventTypes, processDefinitionKey);
-
-        stepVerifier.expectNext(messagePayload);
+        stepVerifier.expectNextMatches(expectedEngineEvents(eventTypes, processDefinitionKey));
     }
 
     @Then("notifications: the payload with $eventTypes notifications is expected")
@@ -223,10 +270,85 @@ public class ProcessInstanceNotifications {
         String processDefinitionKey = processInstanceRef.get()
                                                         .getProcessDefinitionKey();
                                                         
-        String messagePayload = messagePayload(eventTypes, processDefinitionKey);
-
-        stepVerifier.expectNext(messagePayload);
+        stepVerifier.expectNextMatches(expectedEngineEvents(eventTypes, processDefinitionKey));
     }    
+    @When("notifications: $subscribers subscribers listen to $eventTypes events of $businessKeyCount business keys")
+    public void openFanOutSubscriptions(int subscribers,
+                                        String eventTypes,
+                                        int businessKeyCount) throws InterruptedException {
+        String runId = UUID.randomUUID().toString();
+        List<String> businessKeys = IntStream.range(0,
+                                                    businessKeyCount)
+                .mapToObj(index -> "fan-out-" + runId + "-" + index)
+                .collect(Collectors.toList());
+
+        fanOut = new NotificationFanOut(businessKeys,
+                                        Arrays.asList(eventTypes.split(",")));
+        fanOut.open(notificationsSteps,
+                    TokenHolder.getAuthToken().getAccess_token(),
+                    subscribers,
+                    Duration.ofSeconds(sessionTimeoutSeconds()));
+        fanOutHistogramName = fanOut.histogramName();
+    }
+
+    @When("notifications: $users users start $instances instances of the process $processName across the business keys at $rate per second")
+    public void startFanOutProcesses(int users,
+                                     int instances,
+                                     String processName,
+                                     double rate) throws InterruptedException {
+        String processDefinitionKey = processDefinitionKeyMatcher(processName);
+        ReactiveRuntimeClient client = ReactiveRuntimeClient.of(runtimeBundleUrl);
+        AtomicInteger nextInstance = new AtomicInteger();
+
+        LoadResult loadResult = new FixedRateLoad(LoadSessions.authenticate(authenticationSteps,
+                                                                            users),
+                                                  instances,
+                                                  rate)
+                .run("notifications.fan-out.start." + processDefinitionKey,
+                     token -> {
+                         String businessKey = fanOut.businessKey(nextInstance.getAndIncrement());
+                         CloudProcessInstance startedInstance = client.startProcess(token,
+                                                                                    ProcessPayloadBuilder
+                                                                                            .start()
+                                                                                            .withProcessDefinitionKey(processDefinitionKey)
+                                                                                            .withBusinessKey(businessKey)
+                                                                                            .build())
+                                 .block();
+                         assertThat(startedInstance).isNotNull();
+                         client.markDirty(token,
+                                          startedInstance.getId());
+                         fanOut.instanceStarted(businessKey);
+                     });
+        PerformanceReport.attach("Notification fan-out process starts " + processName,
+                                 loadResult);
+    }
+
+    @Then("notifications: every subscriber receives its events within $seconds seconds")
+    public void verifyFanOutDelivery(long seconds) {
+        FanOutResult fanOutResult = fanOut.awaitDelivery(Duration.ofSeconds(seconds));
+        closeFanOut();
+        PerformanceReport.record("Notification fan-out " + fanOutResult.getSubscribers() + " subscribers",
+                                 fanOutResult);
+
+        assertThat(fanOutResult.getExpectedEvents()).isPositive();
+        assertThat(fanOutResult.getDroppedEvents()).as("dropped events").isZero();
+    }
+
+    @Then("notifications: the delivery latency at percentile $percentile is below $millis milliseconds")
+    public void verifyFanOutDeliveryLatency(double percentile,
+                                            long millis) {
+        assertThat(LatencyHistograms.percentileMillis(fanOutHistogramName,
+                                                      percentile)).isLessThan(millis);
+    }
+
+    @AfterScenario
+    public void closeFanOut() {
+        if (fanOut != null) {
+            fanOut.close();
+            fanOut = null;
+        }
+    }
+
     private void cancelSubscription() {
         // signal to stop receiving notifications 
         subscriptionRef.get()
@@ -268,36 +390,19 @@ public class ProcessInstanceNotifications {
         return Optional.ofNullable(Serenity.sessionVariableCalled(key));
     }
     
-    @SuppressWarnings("serial")
-    private ObjectMap engineEvent(String eventType, String processDefinitionKey) {
-        return new ObjectMap() {{
-                put("serviceName", notificationsSteps.getRuntimeBundleServiceName());
-                put("processDefinitionKey", processDefinitionKey);
-                put("eventType", eventType);
-            }}; 
-    }
-    
-    @SuppressWarnings("serial")
-    private ObjectMap objectMapPayload(ObjectMap[] engineEvents) {
-        return new ObjectMap() {{
-            put("payload", new ObjectMap() {{
-                put("data", new ObjectMap() {{
-                    put("engineEvents", engineEvents);
-                }});
-            }});
-            put("id","1");
-            put("type", "data");
-        }};
-    }
-    
-    private String messagePayload(String eventTypes, String processDefinitionKey) throws JsonProcessingException {
-        ObjectMap[] engineEvents = Stream.of(eventTypes.split(","))
-                .map(eventType -> engineEvent(eventType, processDefinitionKey))
-                .toArray(ObjectMap[]::new);
-        
-        Map<String, Object> objectMapPayload = objectMapPayload(engineEvents);
-        
-        return objectMapper.writeValueAsString(objectMapPayload);        
+    private Predicate<String> expectedEngineEvents(String eventTypes,
+                                                   String processDefinitionKey) {
+        List<Map<String, String>> engineEvents = Stream.of(eventTypes.split(","))
+                .map(eventType -> {
+                    Map<String, String> engineEvent = new LinkedHashMap<>();
+                    engineEvent.put("serviceName", notificationsSteps.getRuntimeBundleServiceName());
+                    engineEvent.put("processDefinitionKey", processDefinitionKey);
+                    engineEvent.put("eventType", eventType);
+                    return engineEvent;
+                })
+                .collect(Collectors.toList());
+
+        return EngineEventFrames.matching(engineEvents);
     }
     
     private ReplayProcessor<String> subscribe(String[] eventTypes, String businessKey) throws InterruptedException {
@@ -315,6 +420,8 @@ public class ProcessInstanceNotifications {
                         "  engineEvents(serviceName: [$serviceName], eventType: $eventTypes, businessKey: [$businessKey]) {" +
                         "    serviceName " +
                         "    processDefinitionKey " +
+                        "    processInstanceId " +
+                        "    businessKey " +
                         "    eventType " +
                         "  }" +
                         "}";
@@ -334,6 +441,10 @@ public class ProcessInstanceNotifications {
                                             query, 
                                             variables, 
                                             action);
+
+        // timestamp the frames on arrival, as the step verifier only sees them replayed
+        notificationLatency = new NotificationLatency();
+        data.subscribe(notificationLatency::received);
         
         assertThat(countDownLatch.await(sessionTimeoutSeconds, 
                                         TimeUnit.SECONDS))
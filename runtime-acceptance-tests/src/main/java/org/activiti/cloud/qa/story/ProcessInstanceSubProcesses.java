@@ -16,10 +16,11 @@
 
 package org.activiti.cloud.qa.story;
 
+import static org.activiti.cloud.qa.helpers.EngineEventWaits.afterProcessInstanceEvent;
 import static org.activiti.cloud.qa.helpers.ProcessDefinitionRegistry.processDefinitionKeyMatcher;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.RUNTIME_BUNDLE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
-import static org.awaitility.Awaitility.await;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -36,6 +37,7 @@ import org.activiti.cloud.acc.core.steps.runtime.ProcessRuntimeBundleSteps;
 import org.activiti.cloud.acc.core.steps.runtime.ProcessVariablesRuntimeBundleSteps;
 import org.activiti.cloud.acc.core.steps.runtime.TaskRuntimeBundleSteps;
 import org.activiti.cloud.api.model.shared.CloudVariableInstance;
+import org.activiti.cloud.qa.helpers.EngineEventWaits;
 import org.jbehave.core.annotations.Then;
 import org.jbehave.core.annotations.When;
 import org.springframework.hateoas.Resources;
@@ -72,6 +74,7 @@ public class ProcessInstanceSubProcesses {
 
     @When("the user starts a process with tasks and a subProcess called $processName")
     public void startProcessWithTaks(String processName) throws IOException, InterruptedException {
+        EngineEventWaits.commandSent();
         processInstance = processRuntimeBundleSteps.startProcess(processDefinitionKeyMatcher(processName),false);
 
         Serenity.setSessionVariable("processInstanceId").to(processInstance.getId());
@@ -80,6 +83,7 @@ public class ProcessInstanceSubProcesses {
     
     @When("the user starts a process with a subProcess called $processName")
     public void startProcess(String processName) throws IOException, InterruptedException {        
+        EngineEventWaits.commandSent();
         processInstance = processRuntimeBundleSteps.startProcess(processDefinitionKeyMatcher(processName),false);
 
         Serenity.setSessionVariable("processInstanceId").to(processInstance.getId());
@@ -99,11 +103,13 @@ public class ProcessInstanceSubProcesses {
     
     @When("the user claims the task declared in the subprocess")
     public void claimTask() throws Exception {
+        EngineEventWaits.commandSent();
         taskRuntimeBundleSteps.claimTask(currentTask.getId());
     }
     
     @When("the user completes the task declared in the subprocess")
     public void completeTask() throws Exception {
+        EngineEventWaits.commandSent();
         taskRuntimeBundleSteps.completeTask(currentTask.getId(),
                 TaskPayloadBuilder
                         .complete()
@@ -142,7 +148,11 @@ public class ProcessInstanceSubProcesses {
     public void checkSubProcessInstanceVariable(String variableName,
                                                 String variableValue){
         assertThat(subprocessInstance).isNotNull();
-        await().untilAsserted(() -> {
+        afterProcessInstanceEvent(RUNTIME_BUNDLE,
+                                  "subprocess-variables",
+                                  subprocessInstance.getId(),
+                                  "VARIABLE_CREATED",
+                                  "VARIABLE_UPDATED").untilAsserted(() -> {
             Resources<CloudVariableInstance> processVariables = processVariablesRuntimeBundleSteps.getVariables(subprocessInstance.getId());
             assertThat(processVariables.getContent()).isNotNull();
             assertThat(processVariables.getContent())
@@ -156,7 +166,11 @@ public class ProcessInstanceSubProcesses {
     @Then("the parent process instance has a variable named $variableName with value $variableValue")
     public void checkParentProcessInstanceVariable(String variableName,
                           String variableValue){
-        await().untilAsserted(() -> {
+        afterProcessInstanceEvent(RUNTIME_BUNDLE,
+                                  "parent-process-variables",
+                                  processInstance.getId(),
+                                  "VARIABLE_CREATED",
+                                  "VARIABLE_UPDATED").untilAsserted(() -> {
             Resources<CloudVariableInstance> processVariables = processVariablesRuntimeBundleSteps.getVariables(processInstance.getId());
             assertThat(processVariables.getContent()).isNotNull();
             assertThat(processVariables.getContent())
@@ -20,9 +20,11 @@ import static org.activiti.cloud.acc.core.helper.Filters.checkProcessInstances;
 import static org.activiti.cloud.qa.helpers.ProcessDefinitionRegistry.processDefinitionKeyMatcher;
 import static org.activiti.cloud.qa.helpers.ProcessDefinitionRegistry.processDefinitionKeys;
 import static org.activiti.cloud.qa.helpers.ProcessDefinitionRegistry.withTasks;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.AUDIT;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.QUERY;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.await;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
-import static org.awaitility.Awaitility.await;
 
 import feign.FeignException;
 import net.serenitybdd.core.Serenity;
@@ -30,10 +32,12 @@ import net.thucydides.core.annotations.Steps;
 import org.activiti.api.model.shared.event.VariableEvent;
 import org.activiti.api.process.model.ProcessDefinition;
 import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
 import org.activiti.api.process.model.events.ProcessRuntimeEvent;
 import org.activiti.api.task.model.Task;
 import org.activiti.api.task.model.builders.TaskPayloadBuilder;
 import org.activiti.api.task.model.events.TaskRuntimeEvent;
+import org.activiti.cloud.acc.core.rest.feign.EnableRuntimeFeignContext;
 import org.activiti.cloud.acc.core.steps.audit.AuditSteps;
 import org.activiti.cloud.acc.core.steps.audit.admin.AuditAdminSteps;
 import org.activiti.cloud.acc.core.steps.query.ProcessQuerySteps;
@@ -43,23 +47,44 @@ import org.activiti.cloud.acc.core.steps.runtime.ProcessRuntimeBundleSteps;
 import org.activiti.cloud.acc.core.steps.runtime.TaskRuntimeBundleSteps;
 import org.activiti.cloud.acc.core.steps.runtime.admin.ProcessRuntimeAdminSteps;
 import org.activiti.cloud.acc.core.steps.runtime.admin.TaskRuntimeAdminSteps;
+import org.activiti.cloud.acc.shared.rest.TokenHolder;
 import org.activiti.cloud.acc.shared.rest.error.ExpectRestNotFound;
+import org.activiti.cloud.acc.shared.steps.AuthenticationSteps;
 import org.activiti.cloud.api.model.shared.events.CloudRuntimeEvent;
 import org.activiti.cloud.api.process.model.CloudProcessDefinition;
 import org.activiti.cloud.api.process.model.CloudProcessInstance;
+import org.activiti.cloud.api.task.model.CloudTask;
+import org.activiti.cloud.qa.fixtures.StoryFixtures;
+import org.activiti.cloud.qa.helpers.FixedRateLoad;
+import org.activiti.cloud.qa.helpers.LoadResult;
+import org.activiti.cloud.qa.helpers.LoadSessions;
+import org.activiti.cloud.qa.helpers.PerformanceReport;
+import org.activiti.cloud.qa.helpers.ReactiveRuntimeClient;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+import org.activiti.cloud.qa.metrics.PropagationLag;
+import org.activiti.cloud.qa.rest.BulkDirtyContextHandler;
+import org.activiti.cloud.qa.tokens.TokenCache;
 import org.jbehave.core.annotations.Given;
 import org.jbehave.core.annotations.Then;
 import org.jbehave.core.annotations.When;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.PagedResources;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+@EnableRuntimeFeignContext
 public class ProcessInstanceTasks {
 
     @Steps
@@ -84,6 +109,9 @@ public class ProcessInstanceTasks {
     @Steps
     private AuditAdminSteps auditAdminSteps;
 
+    @Steps
+    private AuthenticationSteps authenticationSteps;
+
     private ProcessInstance processInstance;
 
     private String processInstanceDiagram;
@@ -93,6 +121,11 @@ public class ProcessInstanceTasks {
     
     private static int AUDIT_STEP_TIMEOUT = 60;
 
+    private static final int MAX_RECORDED_FAILURES = 10;
+
+    @Value("${runtime.bundle.url}")
+    private String runtimeBundleUrl;
+
     @When("services are started")
     public void checkServicesStatus() {
         processRuntimeBundleSteps.checkServicesHealth();
@@ -124,6 +157,35 @@ public class ProcessInstanceTasks {
         checkProcessWithTaskCreated(processName);
     }
 
+    /**
+     * Starts the process once per story and user, for the scenarios that only read the process instance.
+     * The instance is started outside of the dirty context, so the cleanup of the scenario leaves it
+     * to the following ones, and deleted at the end of the story.
+     */
+    @Given("the user starts or reuses a shared instance of the process called $processName")
+    @When("the user starts or reuses a shared instance of the process called $processName")
+    public void startOrReuseSharedProcess(String processName) {
+        String accessToken = TokenHolder.getAuthToken().getAccess_token();
+        String fixtureName = "process " + processName + " started by " + TokenCache.username(accessToken);
+        boolean reused = StoryFixtures.isSetUp(fixtureName);
+        processInstance = StoryFixtures.acquire(fixtureName,
+                                                () -> reactiveRuntimeClient()
+                                                        .startProcess(accessToken,
+                                                                      ProcessPayloadBuilder
+                                                                              .start()
+                                                                              .withProcessDefinitionKey(processDefinitionKeyMatcher(processName))
+                                                                              .build())
+                                                        .block(),
+                                                (ownerToken, sharedInstance) -> reactiveRuntimeClient()
+                                                        .deleteProcessInstance(ownerToken,
+                                                                               sharedInstance.getId())
+                                                        .block());
+        if (reused) {
+            assertThat(processRuntimeBundleSteps.getProcessInstanceById(processInstance.getId())).isNotNull();
+        }
+        Serenity.setSessionVariable("processInstanceId").to(processInstance.getId());
+    }
+
     @When("the user starts a process with variables called $processName")
     public void startProcessWithVariables(String processName) throws IOException {
 
@@ -133,8 +195,164 @@ public class ProcessInstanceTasks {
         checkProcessWithTaskCreated(processName);
     }
 
+    /**
+     * Each user is a session of its own of the authenticated user
+     */
+    @When("$users users start $instances instances of the process called $processName at $rate per second")
+    public void startProcessesAtFixedRate(int users,
+                                          int instances,
+                                          String processName,
+                                          double rate) throws InterruptedException {
+        String processDefinitionKey = processDefinitionKeyMatcher(processName);
+        ReactiveRuntimeClient client = reactiveRuntimeClient();
+
+        LoadResult loadResult = new FixedRateLoad(LoadSessions.authenticate(authenticationSteps,
+                                                                            users),
+                                                  instances,
+                                                  rate)
+                .run("process.start." + processDefinitionKey,
+                     token -> {
+                         CloudProcessInstance startedInstance = client.startProcess(token,
+                                                                                    ProcessPayloadBuilder
+                                                                                            .start()
+                                                                                            .withProcessDefinitionKey(processDefinitionKey)
+                                                                                            .build())
+                                 .block();
+                         assertThat(startedInstance).isNotNull();
+                         client.markDirty(token,
+                                          startedInstance.getId());
+                     });
+
+        Serenity.setSessionVariable("loadResult").to(loadResult);
+        PerformanceReport.record("Process start load " + processName,
+                                 loadResult);
+    }
+
+    @Then("all the process instances are started")
+    public void checkAllProcessInstancesStarted() {
+        LoadResult loadResult = Serenity.sessionVariableCalled("loadResult");
+        assertThat(loadResult.getFailures()).isEmpty();
+        assertThat(loadResult.getErrors()).isZero();
+    }
+
+    @Then("the achieved start rate is at least $rate per second")
+    public void checkAchievedStartRate(double rate) {
+        LoadResult loadResult = Serenity.sessionVariableCalled("loadResult");
+        assertThat(loadResult.getThroughputPerSecond()).isGreaterThanOrEqualTo(rate);
+    }
+
+    @Then("the start latency at percentile $percentile is below $millis milliseconds")
+    public void checkStartLatency(double percentile,
+                                  long millis) {
+        LoadResult loadResult = Serenity.sessionVariableCalled("loadResult");
+        assertThat(loadResult.getLatency().percentileMillis(percentile)).isLessThan(millis);
+    }
+
+    /**
+     * Keeps process instances in flight through the reactive client. Each lifecycle completes the tasks of
+     * its process instance until none is left and the process instance itself completed. The instances are
+     * marked dirty as soon as they start and forgotten once completed, and every request takes the cached
+     * token of the user when the one of the authentication expires during the run.
+     */
+    @When("the user keeps $instances instances of the process called $processName in flight $inFlight at a time")
+    public void runProcessLifecyclesInFlight(int instances,
+                                             String processName,
+                                             int inFlight) {
+        String processDefinitionKey = processDefinitionKeyMatcher(processName);
+        String token = TokenHolder.getAuthToken().getAccess_token();
+        ReactiveRuntimeClient client = reactiveRuntimeClient();
+        String histogramName = "process.lifecycle." + processDefinitionKey;
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        List<String> failures = new CopyOnWriteArrayList<>();
+
+        long startNanos = System.nanoTime();
+        Flux.range(0,
+                   instances)
+                .flatMap(index -> Mono.fromSupplier(System::nanoTime)
+                                 .flatMap(lifecycleStartNanos -> client
+                                         .startProcess(TokenCache.current(token),
+                                                       ProcessPayloadBuilder
+                                                               .start()
+                                                               .withProcessDefinitionKey(processDefinitionKey)
+                                                               .build())
+                                         .doOnNext(processInstance -> client.markDirty(token,
+                                                                                       processInstance.getId()))
+                                         .flatMap(processInstance -> completeAllTasks(client,
+                                                                                      token,
+                                                                                      processInstance.getId())
+                                                 .then(Mono.fromRunnable(() -> {
+                                                     LatencyHistograms.recordNanos(histogramName,
+                                                                                   System.nanoTime() - lifecycleStartNanos);
+                                                     completed.incrementAndGet();
+                                                     BulkDirtyContextHandler.deleted(processInstance.getId());
+                                                 }))))
+                                 .onErrorResume(failure -> {
+                                     errors.incrementAndGet();
+                                     if (failures.size() < MAX_RECORDED_FAILURES) {
+                                         failures.add(failure.toString());
+                                     }
+                                     return Mono.empty();
+                                 }),
+                         inFlight)
+                .blockLast();
+
+        LoadResult loadResult = new LoadResult(histogramName,
+                                               completed.get(),
+                                               errors.get(),
+                                               TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                                               LatencyHistograms.summary(histogramName),
+                                               failures);
+        Serenity.setSessionVariable("loadResult").to(loadResult);
+        PerformanceReport.record("Process lifecycles in flight " + processName,
+                                 loadResult);
+    }
+
+    /**
+     * Completes the tasks of the process instance, and the ones their completion creates, and fails
+     * if the process instance is still running once no task is left
+     */
+    private static Mono<Void> completeAllTasks(ReactiveRuntimeClient client,
+                                               String token,
+                                               String processInstanceId) {
+        return Mono.defer(() -> client.getTasks(TokenCache.current(token),
+                                                processInstanceId))
+                .flatMap(tasks -> tasks.isEmpty() ?
+                        client.getProcessInstance(TokenCache.current(token),
+                                                  processInstanceId)
+                                .flatMap(running -> Mono.<Void>error(new IllegalStateException("Process instance " + processInstanceId
+                                                                                                       + " has no task left but is "
+                                                                                                       + running.getStatus()))) :
+                        Flux.fromIterable(tasks)
+                                .concatMap(task -> claimAndCompleteTask(client,
+                                                                        token,
+                                                                        task))
+                                .then(completeAllTasks(client,
+                                                       token,
+                                                       processInstanceId)));
+    }
+
+    private static Mono<CloudTask> claimAndCompleteTask(ReactiveRuntimeClient client,
+                                                        String token,
+                                                        CloudTask task) {
+        return (task.getAssignee() == null ?
+                Mono.defer(() -> client.claimTask(TokenCache.current(token),
+                                                  task.getId())).then() :
+                Mono.<Void>empty())
+                .then(Mono.defer(() -> client.completeTask(TokenCache.current(token),
+                                                           task.getId(),
+                                                           Collections.emptyMap())));
+    }
+
+    private ReactiveRuntimeClient reactiveRuntimeClient() {
+        return ReactiveRuntimeClient.of(runtimeBundleUrl);
+    }
+
     private void checkProcessWithTaskCreated(String processName) {
         assertThat(processInstance).isNotNull();
+        long startCompletedAt = System.currentTimeMillis();
+        PropagationLag.commandCompletedAt(startCompletedAt,
+                                          processInstance.getId());
 
         if(withTasks(processName)){
             List<Task> tasks = new ArrayList<>(
@@ -143,6 +361,8 @@ public class ProcessInstanceTasks {
             currentTask = tasks.get(0);
             assertThat(currentTask).isNotNull();
             Serenity.setSessionVariable("currentTaskId").to(currentTask.getId());
+            PropagationLag.commandCompletedAt(startCompletedAt,
+                                              currentTask.getId());
         }
 
         Serenity.setSessionVariable("processInstanceId").to(processInstance.getId());
@@ -162,11 +382,13 @@ public class ProcessInstanceTasks {
     @When("the user claims the task")
     public void claimTask() throws Exception {
         taskRuntimeBundleSteps.claimTask(currentTask.getId());
+        PropagationLag.commandCompleted(currentTask.getId());
     }
 
     @When("the user releases the task")
     public void releaseTask() throws Exception {
         taskRuntimeBundleSteps.releaseTask(currentTask.getId());
+        PropagationLag.commandCompleted(currentTask.getId());
     }
 
     @When("the user completes the task")
@@ -176,6 +398,8 @@ public class ProcessInstanceTasks {
                         .complete()
                         .withTaskId(currentTask.getId())
                         .build());
+        PropagationLag.commandCompleted(currentTask.getId(),
+                                        processInstance.getId());
     }
     
     @When("the user completes the task with variable $variableName set to $value")
@@ -186,6 +410,8 @@ public class ProcessInstanceTasks {
                         .withTaskId(currentTask.getId())
                         .withVariable(variableName, value)
                         .build());
+        PropagationLag.commandCompleted(currentTask.getId(),
+                                        processInstance.getId());
     }
     
     
@@ -196,6 +422,8 @@ public class ProcessInstanceTasks {
                         .complete()
                         .withTaskId(currentTask.getId())
                         .build());
+        PropagationLag.commandCompleted(currentTask.getId(),
+                                        processInstance.getId());
     }
 
     @Then("the user cannot complete the task")
@@ -210,8 +438,10 @@ public class ProcessInstanceTasks {
     @When("the status of the task since the beginning is $status")
     public void checkTaskStatusSinceBeginning(Task.TaskStatus status){
         taskRuntimeBundleSteps.checkTaskStatus(currentTask.getId(), status);
-        taskQuerySteps.checkTaskStatus(currentTask.getId(), status);
-        auditSteps.checkTaskCreatedAndAssignedEventsWhenAlreadyAssigned(currentTask.getId());
+        checkQueryTaskStatus(status);
+        checkAuditEvents(TaskRuntimeEvent.TaskEvents.TASK_ASSIGNED,
+                         currentTask.getId(),
+                         () -> auditSteps.checkTaskCreatedAndAssignedEventsWhenAlreadyAssigned(currentTask.getId()));
     }
 
     @When("the user saves the task with variable $variableName equal to $variableValue")
@@ -226,22 +456,59 @@ public class ProcessInstanceTasks {
     @When("the status of the task is $taskStatus")
     public void checkTaskStatus(Task.TaskStatus taskStatus) throws Exception {
         taskRuntimeBundleSteps.checkTaskStatus(currentTask.getId(), taskStatus);
-        taskQuerySteps.checkTaskStatus(currentTask.getId(), taskStatus);
+        checkQueryTaskStatus(taskStatus);
 
         switch (taskStatus){
             case CREATED:
-                auditSteps.checkTaskCreatedEvent(currentTask.getId());
+                checkAuditEvents(TaskRuntimeEvent.TaskEvents.TASK_CREATED,
+                                 currentTask.getId(),
+                                 () -> auditSteps.checkTaskCreatedEvent(currentTask.getId()));
                 break;
             case ASSIGNED:
-                auditSteps.checkTaskCreatedAndAssignedEvents(currentTask.getId());
+                checkAuditEvents(TaskRuntimeEvent.TaskEvents.TASK_ASSIGNED,
+                                 currentTask.getId(),
+                                 () -> auditSteps.checkTaskCreatedAndAssignedEvents(currentTask.getId()));
                 break;
             case COMPLETED:
-                auditSteps.checkTaskCreatedAndAssignedAndCompletedEvents(currentTask.getId());
+                checkAuditEvents(TaskRuntimeEvent.TaskEvents.TASK_COMPLETED,
+                                 currentTask.getId(),
+                                 () -> auditSteps.checkTaskCreatedAndAssignedAndCompletedEvents(currentTask.getId()));
                 break;
         }
 
     }
 
+    private void checkQueryTaskStatus(Task.TaskStatus taskStatus) {
+        PropagationLag.measure("query.task-" + taskStatus.name().toLowerCase(),
+                               currentTask.getId(),
+                               () -> taskQuerySteps.checkTaskStatus(currentTask.getId(),
+                                                                    taskStatus));
+    }
+
+    private void checkQueryProcessInstanceStatus(String processInstanceId,
+                                                 ProcessInstance.ProcessInstanceStatus status) {
+        PropagationLag.measure("query.process-" + status.name().toLowerCase(),
+                               processInstanceId,
+                               () -> processQuerySteps.checkProcessInstanceStatus(processInstanceId,
+                                                                                  status));
+    }
+
+    /**
+     * Runs an audit check and records how long after the command the last of
+     * the expected events became visible in audit, under its event type
+     */
+    private void checkAuditEvents(Enum<?> lastExpectedEvent,
+                                  String entityId,
+                                  Runnable check) {
+        String histogramName = "audit." + lastExpectedEvent.name();
+        if (PropagationLag.measure(histogramName,
+                                   entityId,
+                                   check)) {
+            PerformanceReport.attach("Audit ingestion lag of " + lastExpectedEvent.name(),
+                                     LatencyHistograms.summary(histogramName));
+        }
+    }
+
     @Then("the task cannot be claimed by user")
     public void cannotClaimTask() throws Exception {
         taskRuntimeBundleSteps.cannotClaimTask(currentTask.getId());
@@ -259,11 +526,13 @@ public class ProcessInstanceTasks {
     @Then("the status of the process and the task is changed to completed")
     public void verifyProcessAndTasksStatus() throws Exception {
 
-        processQuerySteps.checkProcessInstanceStatus(processInstance.getId(),
-                ProcessInstance.ProcessInstanceStatus.COMPLETED);
-        auditSteps.checkProcessInstanceTaskEvent(processInstance.getId(),
-                                                 currentTask.getId(),
-                                                 TaskRuntimeEvent.TaskEvents.TASK_COMPLETED);
+        checkQueryProcessInstanceStatus(processInstance.getId(),
+                                        ProcessInstance.ProcessInstanceStatus.COMPLETED);
+        checkAuditEvents(TaskRuntimeEvent.TaskEvents.TASK_COMPLETED,
+                         currentTask.getId(),
+                         () -> auditSteps.checkProcessInstanceTaskEvent(processInstance.getId(),
+                                                                        currentTask.getId(),
+                                                                        TaskRuntimeEvent.TaskEvents.TASK_COMPLETED));
         //the process instance disappears once it is completed
         processRuntimeBundleSteps.checkProcessInstanceNotFound(processInstance.getId());
 
@@ -272,9 +541,13 @@ public class ProcessInstanceTasks {
     @Then("the status of the process is changed to completed")
     public void verifyProcessStatus() throws Exception {
         String processId = Serenity.sessionVariableCalled("processInstanceId");
-        processQuerySteps.checkProcessInstanceStatus(processId,
-                ProcessInstance.ProcessInstanceStatus.COMPLETED);
-        auditSteps.checkProcessInstanceEvent(processId, ProcessRuntimeEvent.ProcessEvents.PROCESS_COMPLETED, AUDIT_STEP_TIMEOUT);
+        checkQueryProcessInstanceStatus(processId,
+                                        ProcessInstance.ProcessInstanceStatus.COMPLETED);
+        checkAuditEvents(ProcessRuntimeEvent.ProcessEvents.PROCESS_COMPLETED,
+                         processId,
+                         () -> auditSteps.checkProcessInstanceEvent(processId,
+                                                                    ProcessRuntimeEvent.ProcessEvents.PROCESS_COMPLETED,
+                                                                    AUDIT_STEP_TIMEOUT));
     }
 
     @Then("a variable was created with name $variableName")
@@ -284,20 +557,24 @@ public class ProcessInstanceTasks {
 
         processQuerySteps.checkProcessInstanceHasVariable(processId,
                 variableName);
-        auditSteps.checkProcessInstanceVariableEvent(processId,
-                variableName,
-                VariableEvent.VariableEvents.VARIABLE_CREATED);
+        checkAuditEvents(VariableEvent.VariableEvents.VARIABLE_CREATED,
+                         processId,
+                         () -> auditSteps.checkProcessInstanceVariableEvent(processId,
+                                                                            variableName,
+                                                                            VariableEvent.VariableEvents.VARIABLE_CREATED));
 
     }
 
     @When("the user deletes the process")
     public void deleteCurrentProcessInstance() throws Exception {
         processRuntimeBundleSteps.deleteProcessInstance(processInstance.getId());
+        PropagationLag.commandCompleted(processInstance.getId());
     }
     
     @When("the admin deletes the process")
     public void adminDeleteCurrentProcessInstance() throws Exception {
         processRuntimeAdminSteps.deleteProcessInstance(processInstance.getId());
+        PropagationLag.commandCompleted(processInstance.getId());
     }
 
     @When("the user suspends the process instance")
@@ -309,10 +586,12 @@ public class ProcessInstanceTasks {
     public void verifyProcessInstanceIsDeleted() throws Exception {
         //TODO change to DELETED status and PROCESS_DELETED event when RB is ready
         processRuntimeBundleSteps.checkProcessInstanceNotFound(processInstance.getId());
-        processQuerySteps.checkProcessInstanceStatus(processInstance.getId(),
-                ProcessInstance.ProcessInstanceStatus.CANCELLED);
-        auditSteps.checkProcessInstanceEvent(processInstance.getId(),
-                                             ProcessRuntimeEvent.ProcessEvents.PROCESS_CANCELLED);
+        checkQueryProcessInstanceStatus(processInstance.getId(),
+                                        ProcessInstance.ProcessInstanceStatus.CANCELLED);
+        checkAuditEvents(ProcessRuntimeEvent.ProcessEvents.PROCESS_CANCELLED,
+                         processInstance.getId(),
+                         () -> auditSteps.checkProcessInstanceEvent(processInstance.getId(),
+                                                                    ProcessRuntimeEvent.ProcessEvents.PROCESS_CANCELLED));
     }
 
     @When("open the process diagram")
@@ -391,7 +670,7 @@ public class ProcessInstanceTasks {
     @Then("the user can get events for process with variables instances in admin endpoint")
     public void checkIfEventsFromProcessesWithVariablesArePresentAdmin() {
         assertThat(processInstance).isNotNull();
-        await().untilAsserted(() -> {
+        await(AUDIT, "admin-events-with-variables").untilAsserted(() -> {
             Collection<CloudRuntimeEvent> cloudRuntimeEvents = auditAdminSteps.getEventsAdmin().getContent();
             assertThat(cloudRuntimeEvents)
                     .extracting(CloudRuntimeEvent::getProcessInstanceId,
@@ -477,12 +756,15 @@ public class ProcessInstanceTasks {
 
     @Then("the process instance is updated")
     public void checkIfTaskUpdated (){
-        auditSteps.checkProcessInstanceUpdatedEvent(processInstance.getId());
+        checkAuditEvents(ProcessRuntimeEvent.ProcessEvents.PROCESS_UPDATED,
+                         processInstance.getId(),
+                         () -> auditSteps.checkProcessInstanceUpdatedEvent(processInstance.getId()));
     }
 
     @When("the user updates the name of the process instance to $newProcessName")
     public void setTaskName(String newProcessName){
         processInstance = processRuntimeBundleSteps.setProcessName(processInstance.getId(), newProcessName);
+        PropagationLag.commandCompleted(processInstance.getId());
     }
 
     @Then("the process has the name $newProcessName")
@@ -491,7 +773,7 @@ public class ProcessInstanceTasks {
                 .isEqualTo(newProcessName);
 
         // propagation my take some time to reach query
-        await().untilAsserted(
+        await(QUERY, "process-instance-name").untilAsserted(
                 () ->
                         assertThat(processQuerySteps.getProcessInstance(processInstance.getId()).getName())
                                 .isEqualTo(newProcessName)
@@ -549,7 +831,7 @@ public class ProcessInstanceTasks {
     @Then("the generated events have the same message id")
     public void verifyEventMessageIdIsSet() {
         String processId = Serenity.sessionVariableCalled("processInstanceId");
-        await().untilAsserted(() -> {
+        await(AUDIT, "message-id-events").untilAsserted(() -> {
                                   Collection<CloudRuntimeEvent> generatedEvents = auditSteps.getEventsByProcessInstanceId(processId);
 
             CloudRuntimeEvent cloudRuntimeEvent = generatedEvents
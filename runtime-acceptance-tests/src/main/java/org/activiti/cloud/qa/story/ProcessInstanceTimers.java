@@ -17,29 +17,44 @@
 package org.activiti.cloud.qa.story;
 
 import static org.activiti.cloud.qa.helpers.ProcessDefinitionRegistry.processDefinitionKeyMatcher;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.AUDIT;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.QUERY;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.await;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
-import static org.awaitility.Awaitility.await;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Collection;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import net.serenitybdd.core.Serenity;
 import net.thucydides.core.annotations.Steps;
 import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
 import org.activiti.api.process.model.events.BPMNActivityEvent;
 import org.activiti.api.process.model.events.BPMNTimerEvent;
+import org.activiti.cloud.acc.core.rest.feign.EnableRuntimeFeignContext;
 import org.activiti.cloud.acc.core.steps.audit.AuditSteps;
 import org.activiti.cloud.acc.core.steps.query.ProcessQuerySteps;
 import org.activiti.cloud.acc.core.steps.runtime.ProcessRuntimeBundleSteps;
+import org.activiti.cloud.acc.shared.steps.AuthenticationSteps;
 import org.activiti.cloud.api.model.shared.events.CloudRuntimeEvent;
 import org.activiti.cloud.api.process.model.CloudProcessInstance;
+import org.activiti.cloud.qa.helpers.FixedRateLoad;
+import org.activiti.cloud.qa.helpers.LoadResult;
+import org.activiti.cloud.qa.helpers.LoadSessions;
+import org.activiti.cloud.qa.helpers.PerformanceReport;
+import org.activiti.cloud.qa.helpers.ReactiveRuntimeClient;
+import org.activiti.cloud.qa.helpers.TimerDrift;
+import org.activiti.cloud.qa.helpers.TimerDriftResult;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
 import org.jbehave.core.annotations.Then;
 import org.jbehave.core.annotations.When;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.PagedResources;
 
+@EnableRuntimeFeignContext
 public class ProcessInstanceTimers {
 
     @Steps
@@ -50,8 +65,16 @@ public class ProcessInstanceTimers {
     
     @Steps
     private AuditSteps auditSteps;
+
+    @Steps
+    private AuthenticationSteps authenticationSteps;
+
+    @Value("${runtime.bundle.url}")
+    private String runtimeBundleUrl;
     
     private ProcessInstance processInstance;
+
+    private TimerDrift timerDrift;
     
     @When("services are started")
     public void checkServicesStatus() {
@@ -87,8 +110,7 @@ public class ProcessInstanceTimers {
         }
         
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
-        await().atMost(timeoutSeconds,
-                       TimeUnit.SECONDS).untilAsserted(() -> {
+        await(AUDIT, "timer-events", Duration.ofSeconds(timeoutSeconds)).untilAsserted(() -> {
                   Collection <CloudRuntimeEvent> events = auditSteps.getEventsByProcessAndEntityId(processInstanceId,
                                                                                                    timerId);
                   assertThat(events)
@@ -129,8 +151,7 @@ public class ProcessInstanceTimers {
             timeoutSeconds = 0;
         }
         
-        await().atMost(timeoutSeconds,
-                       TimeUnit.SECONDS).untilAsserted(() -> {
+        await(QUERY, "timer-process-instances", Duration.ofSeconds(timeoutSeconds)).untilAsserted(() -> {
                 PagedResources<CloudProcessInstance> processInstances = processQuerySteps
                                                                        .getProcessInstancesByProcessDefinitionKey(processDefinitionKeyMatcher(processName));
     
@@ -161,5 +182,56 @@ public class ProcessInstanceTimers {
                           BPMNTimerEvent.TimerEvents.TIMER_EXECUTED,
                           BPMNActivityEvent.ActivityEvents.ACTIVITY_COMPLETED);
     }
-    
+
+    /**
+     * Each user is a session of its own of the authenticated user
+     */
+    @When("$users users start $instances processes with timer events called $processName at $rate per second")
+    public void startTimerProcessesAtFixedRate(int users,
+                                               int instances,
+                                               String processName,
+                                               double rate) throws InterruptedException {
+        String processDefinitionKey = processDefinitionKeyMatcher(processName);
+        ReactiveRuntimeClient client = ReactiveRuntimeClient.of(runtimeBundleUrl);
+        timerDrift = new TimerDrift(processDefinitionKey);
+
+        LoadResult loadResult = new FixedRateLoad(LoadSessions.authenticate(authenticationSteps,
+                                                                            users),
+                                                  instances,
+                                                  rate)
+                .run("timers.start." + processDefinitionKey,
+                     token -> {
+                         String processInstanceId = client.startProcess(token,
+                                                                        ProcessPayloadBuilder
+                                                                                .start()
+                                                                                .withProcessDefinitionKey(processDefinitionKey)
+                                                                                .build())
+                                 .block()
+                                 .getId();
+                         client.markDirty(token,
+                                          processInstanceId);
+                         timerDrift.started(processInstanceId);
+                     });
+        PerformanceReport.attach("Timer process starts " + processName,
+                                 loadResult);
+        assertThat(loadResult.getErrors()).isZero();
+    }
+
+    @Then("the timers '$timerId' of all the started processes fire within $timeoutSeconds seconds")
+    public void verifyAllTimersFired(String timerId,
+                                     long timeoutSeconds) {
+        TimerDriftResult result = timerDrift.awaitFired(processInstanceId -> auditSteps.getEventsByProcessAndEntityId(processInstanceId,
+                                                                                                                      timerId),
+                                                        Duration.ofSeconds(timeoutSeconds));
+        PerformanceReport.record("Timer drift " + result.getProcessDefinitionKey() + " " + result.getTimers() + " timers",
+                                 result);
+        assertThat(result.getFired()).isEqualTo(result.getTimers());
+    }
+
+    @Then("the timer drift at percentile $percentile is below $millis milliseconds")
+    public void verifyTimerDrift(double percentile,
+                                 long millis) {
+        assertThat(LatencyHistograms.percentileMillis(timerDrift.histogramName(),
+                                                      percentile)).isLessThan(millis);
+    }
 }
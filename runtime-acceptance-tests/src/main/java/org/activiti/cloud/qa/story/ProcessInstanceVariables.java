@@ -16,9 +16,14 @@
 
 package org.activiti.cloud.qa.story;
 
+import static org.activiti.cloud.qa.helpers.EngineEventWaits.afterProcessInstanceEvent;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.QUERY;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.RUNTIME_BUNDLE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
-import static org.awaitility.Awaitility.await;
+
+import java.util.HashMap;
+import java.util.Map;
 
 import net.serenitybdd.core.Serenity;
 import net.thucydides.core.annotations.Steps;
@@ -29,6 +34,12 @@ import org.activiti.cloud.acc.core.steps.query.ProcessQuerySteps;
 import org.activiti.cloud.acc.core.steps.runtime.ProcessRuntimeBundleSteps;
 import org.activiti.cloud.acc.core.steps.runtime.ProcessVariablesRuntimeBundleSteps;
 import org.activiti.cloud.api.model.shared.CloudVariableInstance;
+import org.activiti.cloud.qa.helpers.EngineEventWaits;
+import org.activiti.cloud.qa.helpers.PerformanceReport;
+import org.activiti.cloud.qa.helpers.VariableGenerator;
+import org.activiti.cloud.qa.polling.AdaptivePolling;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+import org.activiti.cloud.qa.metrics.PropagationLag;
 import org.jbehave.core.annotations.Then;
 import org.jbehave.core.annotations.When;
 import org.springframework.hateoas.Resources;
@@ -43,12 +54,20 @@ public class ProcessInstanceVariables {
     @Steps
     private ProcessQuerySteps processQuerySteps;
 
+    private VariableGenerator variableGenerator;
+
+    private Map<String, Object> generatedVariables;
+
     @Then("variable $variableName1 has value $value1 and $variableName2 has value $value2")
     public void checkProcessInstanceVariables(String variableName1, String value1, String variableName2, String value2) {
         
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
         
-        await().untilAsserted(() -> {
+        afterProcessInstanceEvent(RUNTIME_BUNDLE,
+                                  "process-variables",
+                                  processInstanceId,
+                                  "VARIABLE_CREATED",
+                                  "VARIABLE_UPDATED").untilAsserted(() -> {
                 assertThat(variableName1).isNotNull();
                 assertThat(variableName2).isNotNull();
             
@@ -71,7 +90,10 @@ public class ProcessInstanceVariables {
     public void verifyProcessVariableDeleted(String variableName) {
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
 
-        await().untilAsserted(() -> {
+        afterProcessInstanceEvent(RUNTIME_BUNDLE,
+                                  "deleted-process-variable",
+                                  processInstanceId,
+                                  "VARIABLE_DELETED").untilAsserted(() -> {
             assertThat(variableName).isNotNull();
             final Resources<CloudVariableInstance> variableInstances = getProcessVariables(processInstanceId);
             if (variableInstances!=null) {
@@ -85,7 +107,12 @@ public class ProcessInstanceVariables {
     public void verifyProcessVariableCreated(String variableName) {
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
        
-        await().untilAsserted(() -> {
+        afterProcessInstanceEvent(EngineEventWaits.sinceCommandOn(variableName),
+                                  AdaptivePolling.DEFAULT_TIMEOUT,
+                                  RUNTIME_BUNDLE,
+                                  "created-process-variable",
+                                  processInstanceId,
+                                  "VARIABLE_CREATED").untilAsserted(() -> {
             assertThat(variableName).isNotNull();
             final Resources<CloudVariableInstance> variableInstances = getProcessVariables(processInstanceId);
             assertThat(variableInstances).isNotNull();
@@ -103,9 +130,65 @@ public class ProcessInstanceVariables {
                                                                 .setVariables()
                                                                 .withVariable(variableName1, value1)
                                                                 .build();
+        EngineEventWaits.commandSent(variableName1);
         processVariablesRuntimeBundleSteps.setVariables(processInstanceId, setProcessVariablesPayload);
     }
     
+    @When("the user sets $count instance variables of $size bytes with types $types")
+    public void setGeneratedProcessVariables(int count,
+                                             int size,
+                                             String types) {
+        variableGenerator = VariableGenerator.of(count,
+                                                 size,
+                                                 types);
+        setGeneratedProcessVariables("create");
+    }
+
+    @When("the user updates the generated instance variables")
+    public void updateGeneratedProcessVariables() {
+        setGeneratedProcessVariables("update");
+    }
+
+    @Then("the generated instance variables are read from rb and query")
+    public void readGeneratedProcessVariables() {
+        String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
+
+        Resources<CloudVariableInstance> variableInstances = VariableGenerator.timed(variableGenerator.histogramName("read",
+                                                                                                                     RUNTIME_BUNDLE),
+                                                                                     () -> getProcessVariables(processInstanceId));
+        Map<String, Object> runtimeBundleVariables = new HashMap<>();
+        variableInstances.getContent().forEach(variable -> runtimeBundleVariables.put(variable.getName(),
+                                                                                      variable.getValue()));
+        assertThat(runtimeBundleVariables).containsAllEntriesOf(generatedVariables);
+
+        // the query steps only check one variable at a time, so the propagation of the last one is measured
+        String lastVariableName = generatedVariables.keySet().stream().reduce((first, second) -> second).get();
+        PropagationLag.measure(variableGenerator.histogramName("propagation",
+                                                               QUERY),
+                               processInstanceId,
+                               () -> processQuerySteps.checkProcessInstanceHasVariableValue(processInstanceId,
+                                                                                            lastVariableName,
+                                                                                            generatedVariables.get(lastVariableName)));
+
+        PerformanceReport.attach("Variable payload latency",
+                                 LatencyHistograms.summaries(VariableGenerator.HISTOGRAM_PREFIX));
+    }
+
+    private void setGeneratedProcessVariables(String operation) {
+        String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
+
+        generatedVariables = variableGenerator.generate("process");
+        SetProcessVariablesPayload setProcessVariablesPayload = ProcessPayloadBuilder
+                                                                .setVariables()
+                                                                .withVariables(generatedVariables)
+                                                                .build();
+        VariableGenerator.record(variableGenerator.histogramName(operation,
+                                                                 RUNTIME_BUNDLE),
+                                 () -> processVariablesRuntimeBundleSteps.setVariables(processInstanceId,
+                                                                                       setProcessVariablesPayload));
+        PropagationLag.commandCompleted(processInstanceId);
+    }
+
     public Resources<CloudVariableInstance> getProcessVariables(String processInstanceId) {
         return  processVariablesRuntimeBundleSteps.getVariables(processInstanceId);
     } 
@@ -32,6 +32,7 @@ import org.activiti.api.process.model.payloads.SetProcessVariablesPayload;
 import org.activiti.cloud.acc.core.steps.runtime.ProcessRuntimeBundleSteps;
 import org.activiti.cloud.acc.core.steps.runtime.ProcessVariablesRuntimeBundleSteps;
 import org.activiti.cloud.acc.core.steps.runtime.admin.ProcessVariablesRuntimeAdminSteps;
+import org.activiti.cloud.qa.helpers.EngineEventWaits;
 import org.jbehave.core.annotations.Then;
 import org.jbehave.core.annotations.When;
 import org.springframework.http.ResponseEntity;
@@ -49,6 +50,8 @@ public class ProcessInstanceVariablesAdmin {
     @When("the admin starts the process $processName with variables $variableName1 and $variableName2")
     public void adminStartProcess(String processName, String variableName1, String variableName2) {
         Map<String, Object> variables = getVariablesMap(variableName1, variableName1, variableName2, variableName2);
+        EngineEventWaits.commandSent(variableName1,
+                                     variableName2);
         ProcessInstance processInstance = processRuntimeBundleSteps.startProcessWithVariables(
                 processDefinitionKeyMatcher(processName), variables);
 
@@ -65,6 +68,8 @@ public class ProcessInstanceVariablesAdmin {
         setProcessVariablesPayload.setProcessInstanceId(processInstanceId);
         setProcessVariablesPayload.setVariables(variables);
 
+        EngineEventWaits.commandSent(variableName1,
+                                     variableName2);
         ResponseEntity<List<String>> updateVarsErrorMessages = processVariablesRuntimeAdminSteps
                 .updateVariables(processInstanceId, setProcessVariablesPayload);
 
@@ -80,6 +85,7 @@ public class ProcessInstanceVariablesAdmin {
                                                                       .withVariableNames(variableName)
                                                                       .build();
         
+        EngineEventWaits.commandSent(variableName);
         processVariablesRuntimeAdminSteps.removeVariables(processInstanceId, removeProcessVariablesPayload);
     }
     
@@ -17,9 +17,10 @@
 package org.activiti.cloud.qa.story;
 
 import static org.activiti.cloud.qa.helpers.ProcessDefinitionRegistry.processDefinitionKeyMatcher;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.RUNTIME_BUNDLE;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.await;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
-import static org.awaitility.Awaitility.await;
 
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -79,7 +80,7 @@ public class ProcessInstanceVariablesMappingOnStartEvent {
 
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
 
-        await().untilAsserted(() -> {
+        await(RUNTIME_BUNDLE, "start-event-variables").untilAsserted(() -> {
             final Resources<CloudVariableInstance> variables = processVariablesRuntimeBundleSteps
                                                                .getVariables(processInstanceId);
 
@@ -107,7 +108,7 @@ public class ProcessInstanceVariablesMappingOnStartEvent {
         
         Serenity.setSessionVariable("taskId").to(tasks.get(0).getId());
         
-        await().untilAsserted(() -> {
+        await(RUNTIME_BUNDLE, "start-event-task-variables").untilAsserted(() -> {
             final Resources<CloudVariableInstance> variables = taskRuntimeBundleSteps
                                                                .getVariables(tasks.get(0).getId());
             
@@ -27,9 +27,11 @@ import java.util.Map;
 import java.util.TimeZone;
 
 import static org.activiti.cloud.qa.helpers.ProcessDefinitionRegistry.processDefinitionKeyMatcher;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.QUERY;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.RUNTIME_BUNDLE;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.await;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
-import static org.awaitility.Awaitility.await;
 
 import net.serenitybdd.core.Serenity;
 import net.thucydides.core.annotations.Steps;
@@ -47,6 +49,10 @@ import org.activiti.cloud.acc.core.steps.runtime.TaskRuntimeBundleSteps;
 import org.activiti.cloud.acc.core.steps.runtime.admin.TaskRuntimeAdminSteps;
 import org.activiti.cloud.api.model.shared.CloudVariableInstance;
 import org.activiti.cloud.api.task.model.CloudTask;
+import org.activiti.cloud.qa.helpers.PerformanceReport;
+import org.activiti.cloud.qa.helpers.VariableGenerator;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+import org.activiti.cloud.qa.metrics.PropagationLag;
 import org.jbehave.core.annotations.Then;
 import org.jbehave.core.annotations.When;
 import org.springframework.hateoas.Resources;
@@ -178,7 +184,7 @@ public class ProcessInstanceVariablesMappingTypes {
 
         Serenity.setSessionVariable("processInstanceId").to(processInstance.getId());
 
-        await().untilAsserted(() -> {
+        await(RUNTIME_BUNDLE, "mapped-start-variables").untilAsserted(() -> {
             assertThat(processVariableString).isNotNull();
             assertThat(processVariableInteger).isNotNull();
             assertThat(processVariableBoolean).isNotNull();
@@ -208,12 +214,48 @@ public class ProcessInstanceVariablesMappingTypes {
         });
     }
 
+    @When("the user starts $processName with $count generated variables of $size bytes with types $types")
+    public void startProcessWithGeneratedVariables(String processName,
+                                                   int count,
+                                                   int size,
+                                                   String types) {
+        VariableGenerator variableGenerator = VariableGenerator.of(count,
+                                                                   size,
+                                                                   types);
+        Map<String, Object> variables = variableGenerator.generate("process");
+
+        ProcessInstance processInstance = VariableGenerator.timed(variableGenerator.histogramName("start",
+                                                                                                  RUNTIME_BUNDLE),
+                                                                  () -> processRuntimeBundleSteps.startProcessWithVariables(processDefinitionKeyMatcher(processName),
+                                                                                                                            variables));
+        PropagationLag.commandCompleted(processInstance.getId());
+        Serenity.setSessionVariable("processInstanceId").to(processInstance.getId());
+
+        Resources<CloudVariableInstance> variableInstances = VariableGenerator.timed(variableGenerator.histogramName("read",
+                                                                                                                     RUNTIME_BUNDLE),
+                                                                                     () -> getProcessVariables(processInstance.getId()));
+        Map<String, Object> runtimeBundleVariables = new HashMap<>();
+        variableInstances.getContent().forEach(variable -> runtimeBundleVariables.put(variable.getName(),
+                                                                                      variable.getValue()));
+        assertThat(runtimeBundleVariables).containsAllEntriesOf(variables);
+
+        String lastVariableName = variables.keySet().stream().reduce((first, second) -> second).get();
+        PropagationLag.measure(variableGenerator.histogramName("propagation",
+                                                               QUERY),
+                               processInstance.getId(),
+                               () -> processQuerySteps.checkProcessInstanceHasVariable(processInstance.getId(),
+                                                                                       lastVariableName));
+
+        PerformanceReport.attach("Variable payload latency",
+                                 LatencyHistograms.summaries(VariableGenerator.HISTOGRAM_PREFIX));
+    }
+
     @When("variables have correct values")
     public void checkProcessInstanceVariables() {
 
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
 
-        await().untilAsserted(() -> {
+        await(RUNTIME_BUNDLE, "mapped-variables").untilAsserted(() -> {
             assertThat(processVariableString).isNotNull();
             assertThat(processVariableInteger).isNotNull();
             assertThat(processVariableBoolean).isNotNull();
@@ -248,7 +290,7 @@ public class ProcessInstanceVariablesMappingTypes {
 
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
 
-        await().untilAsserted(() -> {
+        await(RUNTIME_BUNDLE, "mapped-variable-types").untilAsserted(() -> {
             assertThat(processVariableString).isNotNull();
             assertThat(processVariableInteger).isNotNull();
             assertThat(processVariableBoolean).isNotNull();
@@ -280,7 +322,7 @@ public class ProcessInstanceVariablesMappingTypes {
     public void verifyProcessVariableCreated() {
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
 
-        await().untilAsserted(() -> {
+        await(RUNTIME_BUNDLE, "mapped-variable-created").untilAsserted(() -> {
             final Resources<CloudVariableInstance> variableInstances = getProcessVariables(processInstanceId);
             assertThat(variableInstances).isNotNull();
             assertThat(variableInstances).isNotEmpty();
@@ -417,7 +459,7 @@ public class ProcessInstanceVariablesMappingTypes {
 
         String processInstanceId = Serenity.sessionVariableCalled("processInstanceId");
 
-        await().untilAsserted(() -> {
+        await(RUNTIME_BUNDLE, "mapped-variables-after-task").untilAsserted(() -> {
             assertThat(processVariableString).isNotNull();
             assertThat(processVariableInteger).isNotNull();
             assertThat(processVariableBoolean).isNotNull();
@@ -19,6 +19,7 @@ package org.activiti.cloud.qa.story;
 import net.thucydides.core.annotations.Steps;
 import org.activiti.cloud.acc.core.steps.audit.AuditSteps;
 import org.activiti.cloud.acc.core.steps.audit.admin.AuditAdminSteps;
+import org.activiti.cloud.acc.core.steps.notifications.NotificationsSteps;
 import org.activiti.cloud.acc.core.steps.query.ProcessQuerySteps;
 import org.activiti.cloud.acc.core.steps.query.TaskQuerySteps;
 import org.activiti.cloud.acc.core.steps.query.admin.ProcessQueryAdminSteps;
@@ -30,7 +31,17 @@ import org.activiti.cloud.acc.core.steps.runtime.admin.ProcessVariablesRuntimeAd
 import org.activiti.cloud.acc.shared.rest.DirtyContextHandler;
 import org.activiti.cloud.acc.shared.rest.EnableDirtyContext;
 import org.activiti.cloud.acc.shared.steps.AuthenticationSteps;
+import org.activiti.cloud.qa.helpers.EngineEventWaits;
+import org.activiti.cloud.qa.helpers.NotificationLatency;
+import org.activiti.cloud.qa.helpers.PerformanceReport;
+import org.activiti.cloud.qa.helpers.ReactiveRuntimeClient;
+import org.activiti.cloud.qa.helpers.VariableGenerator;
+import org.activiti.cloud.qa.metrics.PropagationLag;
+import org.activiti.cloud.qa.polling.AdaptivePolling;
+import org.activiti.cloud.qa.rest.BulkDirtyContextHandler;
+import org.activiti.cloud.qa.serenity.AcceptanceStories;
 import org.jbehave.core.annotations.AfterScenario;
+import org.jbehave.core.annotations.AfterStories;
 import org.jbehave.core.annotations.BeforeStories;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -72,6 +83,9 @@ public class RuntimeLifecycleActions {
     @Steps
     private ProcessVariablesRuntimeAdminSteps processVariablesRuntimeAdminSteps;
 
+    @Steps
+    private NotificationsSteps notificationsSteps;
+
     public RuntimeLifecycleActions() {
     }
 
@@ -90,9 +104,49 @@ public class RuntimeLifecycleActions {
         processVariablesRuntimeAdminSteps.checkServicesHealth();
     }
 
+    @BeforeStories
+    public void subscribeToEngineEvents() {
+        CachedAuthenticationActions.onAuthenticated(EngineEventWaits.class.getName(),
+                                                    accessToken -> EngineEventWaits.open(notificationsSteps,
+                                                                                         accessToken));
+    }
+
     @AfterScenario
     public void cleanup() {
-        dirtyContextHandler.cleanup();
+        EngineEventWaits.close();
+        PropagationLag.forgetCommands();
+        try {
+            dirtyContextHandler.cleanup();
+        } finally {
+            BulkDirtyContextHandler.cleanup();
+        }
+    }
+
+    @AfterStories
+    public void cleanupDeferred() {
+        try {
+            BulkDirtyContextHandler.cleanupDeferred();
+        } finally {
+            ReactiveRuntimeClient.disposeAll();
+        }
+    }
+
+    @AfterStories
+    public void writePerformanceReport() {
+        AcceptanceStories.afterAllStories(RuntimeLifecycleActions::writeHistograms);
+    }
+
+    private static void writeHistograms() {
+        PerformanceReport.writeHistograms("Query propagation lag",
+                                          "query.");
+        PerformanceReport.writeHistograms("Audit ingestion lag",
+                                          "audit.");
+        PerformanceReport.writeHistograms("Eventual consistency waits",
+                                          AdaptivePolling.HISTOGRAM_PREFIX);
+        PerformanceReport.writeHistograms("Notification latency",
+                                          NotificationLatency.HISTOGRAM_PREFIX);
+        PerformanceReport.writeHistograms("Variable payload latency",
+                                          VariableGenerator.HISTOGRAM_PREFIX);
     }
 
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 Alfresco, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.cloud.qa.story;
+
+import static org.activiti.cloud.qa.helpers.ProcessDefinitionRegistry.processDefinitionKeyMatcher;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.thucydides.core.annotations.Steps;
+import org.activiti.cloud.acc.core.rest.feign.EnableRuntimeFeignContext;
+import org.activiti.cloud.acc.shared.model.AuthToken;
+import org.activiti.cloud.acc.shared.rest.TokenHolder;
+import org.activiti.cloud.acc.shared.steps.AuthenticationSteps;
+import org.activiti.cloud.qa.helpers.LoadResult;
+import org.activiti.cloud.qa.helpers.PerformanceReport;
+import org.activiti.cloud.qa.helpers.ReactiveRuntimeClient;
+import org.activiti.cloud.qa.helpers.TaskLifecycleBenchmark;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+import org.activiti.cloud.qa.tokens.TokenCache;
+import org.jbehave.core.annotations.Then;
+import org.jbehave.core.annotations.When;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Task lifecycle throughput benchmarks, for a pool of users each with its own token
+ */
+@EnableRuntimeFeignContext
+public class TaskLifecycleBenchmarks {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Steps
+    private AuthenticationSteps authenticationSteps;
+
+    @Value("${runtime.bundle.url}")
+    private String runtimeBundleUrl;
+
+    private String benchmark;
+
+    private LoadResult benchmarkResult;
+
+    @When("the users $users each run $lifecycles standalone task lifecycles from $sessions sessions")
+    public void runStandaloneTaskLifecycles(String users,
+                                            int lifecycles,
+                                            int sessions) throws IOException {
+        benchmark = "standalone";
+        benchmarkResult = benchmark(users,
+                                    lifecycles,
+                                    sessions).runStandaloneTasks();
+        report("Standalone task lifecycle benchmark");
+    }
+
+    @When("the users $users each run $lifecycles task lifecycles of the process called $processName from $sessions sessions")
+    public void runProcessTaskLifecycles(String users,
+                                         int lifecycles,
+                                         String processName,
+                                         int sessions) throws IOException {
+        benchmark = processDefinitionKeyMatcher(processName);
+        benchmarkResult = benchmark(users,
+                                    lifecycles,
+                                    sessions).runProcessTasks(benchmark);
+        report("Process task lifecycle benchmark " + processName);
+    }
+
+    @Then("all the task lifecycles are completed")
+    public void checkAllTaskLifecyclesCompleted() {
+        assertThat(benchmarkResult.getFailures()).isEmpty();
+        assertThat(benchmarkResult.getErrors()).isZero();
+    }
+
+    @Then("the completed task rate is at least $rate per second")
+    public void checkCompletedTaskRate(double rate) {
+        assertThat(benchmarkResult.getThroughputPerSecond()).isGreaterThanOrEqualTo(rate);
+    }
+
+    @Then("the task $operation latency at percentile $percentile is below $millis milliseconds")
+    public void checkOperationLatency(String operation,
+                                      double percentile,
+                                      long millis) {
+        assertThat(LatencyHistograms.percentileMillis(TaskLifecycleBenchmark.histogramPrefix(benchmark) + operation,
+                                                      percentile)).isLessThan(millis);
+    }
+
+    private TaskLifecycleBenchmark benchmark(String users,
+                                             int lifecycles,
+                                             int sessions) throws IOException {
+        return new TaskLifecycleBenchmark(ReactiveRuntimeClient.of(runtimeBundleUrl),
+                                          tokensOf(users),
+                                          lifecycles,
+                                          sessions);
+    }
+
+    /**
+     * Authenticates every user of the pool, then restores the token of the current user.
+     * The tokens go to the {@link TokenCache}, which renews them during the benchmark.
+     */
+    private Map<String, String> tokensOf(String users) throws IOException {
+        AuthToken currentToken = TokenHolder.getAuthToken();
+        Map<String, String> tokensByUser = new LinkedHashMap<>();
+        try {
+            for (String user : users.split(",")) {
+                authenticationSteps.authenticateUser(user.trim());
+                if (TokenCache.isEnabled()) {
+                    TokenCache.put(user.trim(),
+                                   objectMapper.writeValueAsString(TokenHolder.getAuthToken()));
+                }
+                tokensByUser.put(user.trim(),
+                                 TokenHolder.getAuthToken().getAccess_token());
+            }
+        } finally {
+            TokenHolder.setAuthToken(currentToken);
+        }
+        return tokensByUser;
+    }
+
+    private void report(String title) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("result",
+                   benchmarkResult);
+        report.put("operations",
+                   LatencyHistograms.summaries(TaskLifecycleBenchmark.histogramPrefix(benchmark)));
+        PerformanceReport.record(title,
+                                 report);
+    }
+}
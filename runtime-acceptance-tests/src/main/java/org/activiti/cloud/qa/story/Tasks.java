@@ -16,6 +16,9 @@
 
 package org.activiti.cloud.qa.story;
 
+import static org.activiti.cloud.qa.polling.AdaptivePolling.QUERY;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.RUNTIME_BUNDLE;
+import static org.activiti.cloud.qa.polling.AdaptivePolling.await;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.ArrayList;
@@ -28,6 +31,7 @@ import java.util.Map;
 import net.serenitybdd.core.Serenity;
 import net.thucydides.core.annotations.Steps;
 import org.activiti.api.model.shared.event.VariableEvent;
+import org.activiti.api.model.shared.model.VariableInstance;
 import org.activiti.api.task.model.Task;
 import org.activiti.api.task.model.builders.TaskPayloadBuilder;
 import org.activiti.api.task.model.events.TaskRuntimeEvent;
@@ -43,7 +47,10 @@ import org.activiti.cloud.acc.core.steps.runtime.admin.ProcessRuntimeAdminSteps;
 import org.activiti.cloud.acc.core.steps.runtime.admin.TaskRuntimeAdminSteps;
 import org.activiti.cloud.api.process.model.CloudProcessInstance;
 import org.activiti.cloud.api.task.model.CloudTask;
+import org.activiti.cloud.qa.helpers.PerformanceReport;
 import org.activiti.cloud.qa.helpers.VariableGenerator;
+import org.activiti.cloud.qa.metrics.LatencyHistograms;
+import org.activiti.cloud.qa.metrics.PropagationLag;
 import org.jbehave.core.annotations.Given;
 import org.jbehave.core.annotations.Then;
 import org.jbehave.core.annotations.When;
@@ -89,12 +96,20 @@ public class Tasks {
      */
     private Task subtask;
 
+    /**
+     * variables expected on {@link #newTask}
+     */
+    private Map<String, Object> taskVariables = VariableGenerator.variables;
+
+    private VariableGenerator taskVariableGenerator;
+
     @When("the user creates a standalone task")
     @Given("the user creates a standalone task")
     public void createTask() throws Exception {
         newTask = taskRuntimeBundleSteps.createNewTask();
         assertThat(newTask).isNotNull();
         Serenity.setSessionVariable(STAND_ALONE_TASK_ID).to(newTask.getId());
+        PropagationLag.commandCompleted(newTask.getId());
     }
 
     @When("the user creates an unassigned standalone task")
@@ -102,6 +117,7 @@ public class Tasks {
         newTask = taskRuntimeBundleSteps.createNewUnassignedTask();
         assertThat(newTask).isNotNull();
         Serenity.setSessionVariable(STAND_ALONE_TASK_ID).to(newTask.getId());
+        PropagationLag.commandCompleted(newTask.getId());
     }
 
     @Then("the created task has a status assigned")
@@ -110,27 +126,29 @@ public class Tasks {
         assertThat(assignedTask).isNotNull();
         assertThat(assignedTask.getStatus()).isEqualTo(Task.TaskStatus.ASSIGNED);
         auditSteps.checkTaskCreatedAndAssignedEventsWhenAlreadyAssigned(assignedTask.getId());
-        taskQuerySteps.checkTaskStatus(assignedTask.getId(),
-                                   Task.TaskStatus.ASSIGNED);
+        checkQueryTaskStatus(assignedTask.getId(),
+                             Task.TaskStatus.ASSIGNED);
     }
 
     @When("the user deletes the standalone task")
     public void deleteCurrentTask() {
         taskRuntimeBundleSteps.deleteTask(newTask.getId());
+        PropagationLag.commandCompleted(newTask.getId());
     }
 
     @When("the admin deletes the standalone task")
     public void adminDeleteCurrentTask() {
         taskRuntimeAdminSteps.deleteTask(newTask.getId());
+        PropagationLag.commandCompleted(newTask.getId());
     }
 
     @Then("the standalone task is deleted")
     public void checkTaskIsDeleted() throws Exception {
         taskRuntimeBundleSteps.checkTaskNotFound(newTask.getId());
         auditSteps.checkTaskDeletedEvent(newTask.getId());
-        taskQuerySteps.checkTaskStatus(newTask.getId(),
-                                   //TODO change to DELETED when RB is ready
-                                   Task.TaskStatus.CANCELLED);
+        checkQueryTaskStatus(newTask.getId(),
+                             //TODO change to DELETED when RB is ready
+                             Task.TaskStatus.CANCELLED);
     }
 
     @When("user creates a subtask for the previously created task")
@@ -334,47 +352,106 @@ public class Tasks {
 
     @When("the user creates task variables")
     public void setTaskVariables(){
-        for (Map.Entry<String, Object> entry : VariableGenerator.variables.entrySet()) {
+        taskVariables = VariableGenerator.variables;
+        for (Map.Entry<String, Object> entry : taskVariables.entrySet()) {
             taskRuntimeBundleSteps.createVariable(newTask.getId(), entry.getKey(), entry.getValue());
         }
     }
 
-    @Then("task variables are visible in rb and query")
-    public void checkTaskVariablesAreTheSameInRBAndQuery(){
+    @When("the user creates $count task variables of $size bytes with types $types")
+    public void setGeneratedTaskVariables(int count,
+                                          int size,
+                                          String types) {
+        taskVariableGenerator = VariableGenerator.of(count,
+                                                     size,
+                                                     types);
+        taskVariables = taskVariableGenerator.generate("task");
+        String histogramName = taskVariableGenerator.histogramName("create",
+                                                                   RUNTIME_BUNDLE,
+                                                                   1);
+        for (Map.Entry<String, Object> entry : taskVariables.entrySet()) {
+            VariableGenerator.record(histogramName,
+                                     () -> taskRuntimeBundleSteps.createVariable(newTask.getId(),
+                                                                                 entry.getKey(),
+                                                                                 entry.getValue()));
+        }
+        PropagationLag.commandCompleted(newTask.getId());
+    }
 
-        Map <String,Object> generatedMapRuntime = new HashMap<>();
-        Map <String,Object> generatedMapQuery = new HashMap<>();
+    @When("the user updates the generated task variables")
+    public void updateGeneratedTaskVariables() {
+        taskVariables = taskVariableGenerator.generate("task");
+        String histogramName = taskVariableGenerator.histogramName("update",
+                                                                   RUNTIME_BUNDLE,
+                                                                   1);
+        for (Map.Entry<String, Object> entry : taskVariables.entrySet()) {
+            VariableGenerator.record(histogramName,
+                                     () -> taskRuntimeBundleSteps.updateVariable(newTask.getId(),
+                                                                                 entry.getKey(),
+                                                                                 entry.getValue()));
+        }
+        PropagationLag.commandCompleted(newTask.getId());
+    }
 
-        taskRuntimeBundleSteps
-                .getVariables(newTask.getId())
-                .getContent()
-                .stream()
-                .forEach(element -> generatedMapRuntime.put(element.getName(),element.getValue()));
+    @Then("task variables are visible in rb and query")
+    public void checkTaskVariablesAreTheSameInRBAndQuery(){
+        assertThat(variablesByName(taskRuntimeBundleSteps.getVariables(newTask.getId()).getContent())).isEqualTo(taskVariables);
+        assertThat(variablesByName(taskQuerySteps.getVariables(newTask.getId()).getContent())).isEqualTo(taskVariables);
+    }
 
-        taskQuerySteps
-                .getVariables(newTask.getId())
-                .getContent()
-                .stream()
-                .forEach(element -> generatedMapQuery.put(element.getName(),element.getValue()));
+    @Then("the generated task variables are read from rb and query")
+    public void readGeneratedTaskVariables() {
+        String taskId = newTask.getId();
+
+        Map<String, Object> runtimeBundleVariables = VariableGenerator.timed(taskVariableGenerator.histogramName("read",
+                                                                                                                 RUNTIME_BUNDLE),
+                                                                             () -> variablesByName(taskRuntimeBundleSteps.getVariables(taskId).getContent()));
+        assertThat(runtimeBundleVariables).isEqualTo(taskVariables);
+
+        PropagationLag.measure(taskVariableGenerator.histogramName("propagation",
+                                                                   QUERY),
+                               taskId,
+                               () -> await(QUERY, "task-variables").untilAsserted(() -> assertThat(variablesByName(taskQuerySteps.getVariables(taskId).getContent())).isEqualTo(taskVariables)));
+        Map<String, Object> queryVariables = VariableGenerator.timed(taskVariableGenerator.histogramName("read",
+                                                                                                         QUERY),
+                                                                     () -> variablesByName(taskQuerySteps.getVariables(taskId).getContent()));
+        assertThat(queryVariables).isEqualTo(taskVariables);
+
+        PerformanceReport.attach("Variable payload latency",
+                                 LatencyHistograms.summaries(VariableGenerator.HISTOGRAM_PREFIX));
+    }
 
-        assertThat(generatedMapRuntime).isEqualTo(VariableGenerator.variables);
-        assertThat(generatedMapQuery).isEqualTo(VariableGenerator.variables);
+    private Map<String, Object> variablesByName(Collection<? extends VariableInstance> variableInstances) {
+        Map<String, Object> variables = new HashMap<>();
+        variableInstances.forEach(variable -> variables.put(variable.getName(),
+                                                            variable.getValue()));
+        return variables;
     }
 
     @When("the user claims the standalone task")
     public void claimTask() throws Exception {
         taskRuntimeBundleSteps.claimTask(newTask.getId());
+        PropagationLag.commandCompleted(newTask.getId());
     }
 
     @When("the user releases the standalone task")
     public void releaseTask() throws Exception {
         taskRuntimeBundleSteps.releaseTask(newTask.getId());
+        PropagationLag.commandCompleted(newTask.getId());
     }
 
     @Then("the status of the task is $taskStatus in RB and Query")
     public void checkTaskStatusInRBAndQuery(Task.TaskStatus taskStatus){
         taskRuntimeBundleSteps.checkTaskStatus(newTask.getId(), taskStatus);
-        taskQuerySteps.checkTaskStatus(newTask.getId(), taskStatus);
+        checkQueryTaskStatus(newTask.getId(), taskStatus);
+    }
+
+    private void checkQueryTaskStatus(String taskId,
+                                      Task.TaskStatus taskStatus) {
+        PropagationLag.measure("query.task-" + taskStatus.name().toLowerCase(),
+                               taskId,
+                               () -> taskQuerySteps.checkTaskStatus(taskId,
+                                                                    taskStatus));
     }
 
     @Then("the user is able to delete all tasks in query service")